@@ -7,13 +7,15 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class CORSConfig {
+    public static final String ALLOWED_ORIGIN = "https://quiz-rush-one.vercel.app";
+
     @Bean
     public WebMvcConfigurer corsConfigurer() {
         return new WebMvcConfigurer() {
             @Override
             public void addCorsMappings(CorsRegistry registry) {
                 registry.addMapping("/**") // Allow all routes
-                        .allowedOrigins("https://quiz-rush-one.vercel.app") // Allow all origins — or replace with your Vercel frontend domain
+                        .allowedOrigins(ALLOWED_ORIGIN) // Allow all origins — or replace with your Vercel frontend domain
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                         .allowedHeaders("*");
             }
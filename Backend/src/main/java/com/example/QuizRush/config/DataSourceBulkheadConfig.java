@@ -0,0 +1,34 @@
+package com.example.QuizRush.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts a {@link BulkheadDataSource} in front of the connection pool when
+ * quiz.db.bulkhead.enabled is set. It is meant for the virtual thread mode,
+ * where many more requests can be in flight than there are connections.
+ */
+@Configuration
+@ConditionalOnProperty(name = "quiz.db.bulkhead.enabled", havingValue = "true")
+public class DataSourceBulkheadConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourceBulkhead(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                    int permits = environment.getProperty("quiz.db.bulkhead.permits", Integer.class, 3);
+                    long timeoutMillis = environment.getProperty("quiz.db.bulkhead.timeout-ms", Long.class, 20000L);
+                    return new BulkheadDataSource(dataSource, permits, timeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+}
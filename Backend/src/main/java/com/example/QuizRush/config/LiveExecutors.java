@@ -0,0 +1,59 @@
+package com.example.QuizRush.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors for our own async work, following the same switch as
+ * Tomcat: with spring.threads.virtual.enabled on Java 21 every task gets a
+ * virtual thread, otherwise work runs on fixed pools of platform threads.
+ */
+@Component
+public class LiveExecutors {
+    private final boolean virtualThreads;
+
+    public LiveExecutors(Environment environment) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Pool for work that may block. The thread count only applies to
+     * platform threads.
+     */
+    public ExecutorService newWorkerPool(String threadNamePrefix, int platformThreads) {
+        if (virtualThreads) {
+            return Executors.newCachedThreadPool(new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory());
+        }
+        return Executors.newFixedThreadPool(platformThreads, new CustomizableThreadFactory(threadNamePrefix));
+    }
+
+    /**
+     * Unbounded pool for tasks that are mostly idle but may block for long,
+     * such as writes to slow clients. Platform threads are reused and
+     * retired when idle.
+     */
+    public ExecutorService newElasticPool(String threadNamePrefix) {
+        if (virtualThreads) {
+            return Executors.newCachedThreadPool(new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory());
+        }
+        return Executors.newCachedThreadPool(new CustomizableThreadFactory(threadNamePrefix));
+    }
+
+    /**
+     * Executor for a STOMP channel, or null to keep Spring's default pool.
+     */
+    public Executor channelExecutor(String threadNamePrefix) {
+        return virtualThreads ? new VirtualThreadTaskExecutor(threadNamePrefix) : null;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.QuizRush.config;
 
+import com.example.QuizRush.entities.enums.Role;
 import com.example.QuizRush.filter.JwtFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -39,6 +40,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/host/signup", "/api/host/login",
                                 "/api/participant/join", "/quiz-ws/**").permitAll() // Allow signup and websocket
+                        .requestMatchers("/api/admin/**").hasAuthority(Role.HOST.name()) // Hosts only, each sees the stats of their own rooms
                         .anyRequest().authenticated() // Secure all other endpoints
                 );
         http.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
@@ -1,10 +1,14 @@
 package com.example.QuizRush.config;
 
+import com.example.QuizRush.security.StompAuthChannelInterceptor;
+import com.example.QuizRush.websocket.BinaryFrameEncoding;
+import com.example.QuizRush.websocket.OutboundConflation;
 import jakarta.websocket.server.ServerContainer;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
@@ -16,12 +20,29 @@ import org.springframework.web.socket.server.standard.ServletServerContainerFact
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.concurrent.Executor;
+
 @Configuration
 @EnableWebSocketMessageBroker
 @ConditionalOnWebApplication
 
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
-    
+    private static final int SEND_TIME_LIMIT = 60 * 1000;  // 60 seconds
+    private static final int SEND_BUFFER_SIZE_LIMIT = 1024 * 1024;  // 1MB
+
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final LiveExecutors liveExecutors;
+    private final OutboundConflation outboundConflation;
+    private final BinaryFrameEncoding binaryFrameEncoding;
+
+    public WebSocketConfig(StompAuthChannelInterceptor stompAuthChannelInterceptor, LiveExecutors liveExecutors,
+                           OutboundConflation outboundConflation, BinaryFrameEncoding binaryFrameEncoding) {
+        this.stompAuthChannelInterceptor = stompAuthChannelInterceptor;
+        this.liveExecutors = liveExecutors;
+        this.outboundConflation = outboundConflation;
+        this.binaryFrameEncoding = binaryFrameEncoding;
+    }
+
     @Bean
     @ConditionalOnBean(ServerContainer.class)
     public ServletServerContainerFactoryBean createWebSocketContainer() {
@@ -33,13 +54,39 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         return container;
     }@Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // Topic prefix for quiz broadcasts with heartbeat settings
-        registry.enableSimpleBroker("/topic")
+        // Topic prefix for quiz broadcasts, queue prefix for per-user replies
+        registry.enableSimpleBroker("/topic", "/queue")
                 .setHeartbeatValue(new long[] {20000, 20000})  // Server sends and expects heartbeat every 20 seconds
                 .setTaskScheduler(heartbeatScheduler());  // Use custom scheduler
 
         // Prefix for client-to-server messages
         registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
+
+        // Virtual thread channels have no per-session ordering of their own
+        registry.setPreservePublishOrder(liveExecutors.isVirtualThreads());
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Authenticate once at CONNECT instead of on every message; the encoding is negotiated there too
+        registration.interceptors(stompAuthChannelInterceptor, binaryFrameEncoding);
+
+        Executor executor = liveExecutors.channelExecutor("ws-inbound-");
+        if (executor != null) {
+            registration.executor(executor);
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Swaps in the binary encoding for sessions that negotiated one
+        registration.interceptors(binaryFrameEncoding);
+
+        Executor executor = liveExecutors.channelExecutor("ws-outbound-");
+        if (executor != null) {
+            registration.executor(executor);
+        }
     }
 
     @Bean
@@ -52,18 +99,25 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.setPreserveReceiveOrder(liveExecutors.isVirtualThreads());
+
         registry.addEndpoint("/quiz-ws")
-                .setAllowedOriginPatterns("*");  // Raw WebSocket endpoint
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(binaryFrameEncoding.binaryCapableEndpoint());  // Raw WebSocket endpoint, may use binary frames
         
         registry.addEndpoint("/quiz-ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();  // SockJS fallback
     }    @Override
     public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
-        registration.setSendTimeLimit(60 * 1000)  // 60 seconds
-                .setSendBufferSizeLimit(1024 * 1024)  // 1MB
+        registration.setSendTimeLimit(SEND_TIME_LIMIT)
+                .setSendBufferSizeLimit(SEND_BUFFER_SIZE_LIMIT)
                 .setMessageSizeLimit(256 * 1024)  // 256KB
                 .setTimeToFirstMessage(60 * 1000);  // 60 seconds for initial connection
+
+        // Stale timer and leaderboard frames are replaced rather than queued behind a slow client
+        registration.addDecoratorFactory(handler ->
+                outboundConflation.decorate(handler, SEND_TIME_LIMIT, SEND_BUFFER_SIZE_LIMIT));
     }
 
     @Bean
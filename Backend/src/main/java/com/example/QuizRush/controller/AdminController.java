@@ -0,0 +1,33 @@
+package com.example.QuizRush.controller;
+
+import com.example.QuizRush.dto.websocket.SessionHealthDTO;
+import com.example.QuizRush.repository.QuizRepository;
+import com.example.QuizRush.websocket.SessionHealthMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+    private final SessionHealthMonitor sessionHealthMonitor;
+    private final QuizRepository quizRepository;
+
+    @Autowired
+    public AdminController(SessionHealthMonitor sessionHealthMonitor, QuizRepository quizRepository) {
+        this.sessionHealthMonitor = sessionHealthMonitor;
+        this.quizRepository = quizRepository;
+    }
+
+    // WebSocket delivery health per room and per transport, for the calling host's rooms only
+    @GetMapping("/ws-health")
+    public ResponseEntity<SessionHealthDTO> getWebSocketHealth(Authentication authentication) {
+        Set<String> roomCodes = Set.copyOf(quizRepository.findRoomCodesByHostUsername(authentication.getName()));
+        return ResponseEntity.ok(sessionHealthMonitor.snapshot(roomCodes::contains));
+    }
+}
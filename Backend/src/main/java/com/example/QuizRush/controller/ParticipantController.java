@@ -4,6 +4,7 @@ import com.example.QuizRush.dto.LoginResponse;
 import com.example.QuizRush.dto.ParticipantJoinResponse;
 import com.example.QuizRush.dto.ParticipantLoginRequest;
 import com.example.QuizRush.entities.Participant;
+import com.example.QuizRush.security.ParticipantAuthenticationToken;
 import com.example.QuizRush.service.JwtService;
 import com.example.QuizRush.service.ParticipantService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,7 +47,10 @@ public class ParticipantController {
     @PostMapping("/leave/{roomcode}")
     public ResponseEntity<Void> leaveQuiz(@PathVariable String roomcode, Authentication auth){
         try {
-            participantService.leaveQuiz(roomcode,auth.getName());
+            String nickname = auth instanceof ParticipantAuthenticationToken participant
+                    ? participant.getNickname()
+                    : auth.getName();
+            participantService.leaveQuiz(roomcode,nickname);
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
@@ -1,20 +1,73 @@
 package com.example.QuizRush.controller;
 
+import com.example.QuizRush.dto.AnswerResult;
+import com.example.QuizRush.dto.AnswerSubmission;
+import com.example.QuizRush.dto.websocket.ClockSyncDTO;
 import com.example.QuizRush.dto.websocket.ParticipantDTO;
-import com.example.QuizRush.dto.websocket.WebSocketMessage;
+import com.example.QuizRush.dto.websocket.RoomSnapshotDTO;
+import com.example.QuizRush.dto.websocket.RosterDeltaDTO;
+import com.example.QuizRush.security.ParticipantAuthenticationToken;
+import com.example.QuizRush.service.AnswerService;
+import com.example.QuizRush.service.RoomSnapshotService;
+import com.example.QuizRush.service.RosterAggregator;
 import com.example.QuizRush.service.WebSocketService;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
+
 @Controller
 public class WebSocketController {
     private final WebSocketService webSocketService;
+    private final AnswerService answerService;
+    private final RosterAggregator rosterAggregator;
+    private final RoomSnapshotService roomSnapshotService;
 
-    public WebSocketController(WebSocketService webSocketService) {
+    public WebSocketController(WebSocketService webSocketService, AnswerService answerService,
+                               RosterAggregator rosterAggregator, RoomSnapshotService roomSnapshotService) {
         this.webSocketService = webSocketService;
+        this.answerService = answerService;
+        this.rosterAggregator = rosterAggregator;
+        this.roomSnapshotService = roomSnapshotService;
+    }
+
+    @MessageMapping("/quiz/{roomCode}/answer")
+    @SendToUser(destinations = "/queue/answer-result", broadcast = false)
+    public AnswerResult handleAnswer(@Payload AnswerSubmission submission,
+                                     @DestinationVariable String roomCode,
+                                     Principal principal) {
+        if (!(principal instanceof ParticipantAuthenticationToken authentication)) {
+            return new AnswerResult(false, 0, 0, "Participant token required", null);
+        }
+        try {
+            return answerService.processAnswer(roomCode, submission, authentication);
+        } catch (Exception e) {
+            return new AnswerResult(false, 0, 0, e.getMessage(), null);
+        }
+    }
+
+    /**
+     * Lets clients estimate their offset from the server clock, so they can
+     * count down to the question deadline without per-second updates.
+     */
+    @MessageMapping("/time/sync")
+    @SendToUser(destinations = "/queue/time-sync", broadcast = false)
+    public ClockSyncDTO syncClock(@Payload ClockSyncDTO request) {
+        long receivedAt = System.currentTimeMillis();
+        return new ClockSyncDTO(request.getClientSendTime(), receivedAt, System.currentTimeMillis());
+    }
+
+    /**
+     * Full roster on demand, for clients that missed deltas.
+     */
+    @MessageMapping("/quiz/{roomCode}/roster")
+    @SendToUser(destinations = "/queue/roster", broadcast = false)
+    public RosterDeltaDTO handleRosterSnapshot(@DestinationVariable String roomCode) {
+        return rosterAggregator.snapshot(roomCode);
     }
 
     @MessageMapping("/quiz/{roomCode}/join")
@@ -27,8 +80,13 @@ public class WebSocketController {
 
     }
 
+    /**
+     * Subscribing to /app/quiz/{roomCode} returns the room's current state
+     * from memory, so reconnecting clients don't fall back to polling REST.
+     * Only the quiz's participants and its host get a reply.
+     */
     @SubscribeMapping("/quiz/{roomCode}")
-    public void handleQuizSubscription(){
-
+    public RoomSnapshotDTO handleQuizSubscription(@DestinationVariable String roomCode, Principal principal){
+        return roomSnapshotService.snapshotFor(roomCode, principal);
     }
 }
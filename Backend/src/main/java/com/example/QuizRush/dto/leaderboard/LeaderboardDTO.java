@@ -13,5 +13,6 @@ import java.util.List;
 public class LeaderboardDTO {
     private List<LeaderBoardEntryDTO> entries;
     private boolean isFinal;  // true when quiz is ended
+    private int totalParticipants;  // may exceed entries.size() when only the top K are sent
 
 }
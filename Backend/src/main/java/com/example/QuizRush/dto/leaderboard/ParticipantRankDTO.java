@@ -0,0 +1,21 @@
+package com.example.QuizRush.dto.leaderboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A participant's own standing, sent to their user queue when the room
+ * only receives the top of the leaderboard.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticipantRankDTO {
+    private LeaderBoardEntryDTO self;
+    private List<LeaderBoardEntryDTO> neighbours;  // entries directly above and below
+    private int totalParticipants;
+    private boolean isFinal;
+}
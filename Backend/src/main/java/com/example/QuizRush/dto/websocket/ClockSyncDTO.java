@@ -0,0 +1,19 @@
+package com.example.QuizRush.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Clock sync exchange. The client sends its send time; the server echoes it
+ * with its own receive and reply times so the client can estimate the offset
+ * as ((serverReceiveTime - clientSendTime) + (serverSendTime - clientReceiveTime)) / 2.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClockSyncDTO {
+    private Long clientSendTime;
+    private Long serverReceiveTime;
+    private Long serverSendTime;
+}
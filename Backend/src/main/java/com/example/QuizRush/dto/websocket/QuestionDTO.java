@@ -1,5 +1,6 @@
 package com.example.QuizRush.dto.websocket;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,4 +17,7 @@ public class QuestionDTO {
     private int duration;
     private int points;
 
+    // Server epoch millis at which answers close; clients count down to it locally
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long deadline;
 }
@@ -0,0 +1,30 @@
+package com.example.QuizRush.dto.websocket;
+
+import com.example.QuizRush.dto.leaderboard.LeaderBoardEntryDTO;
+import com.example.QuizRush.entities.enums.QuizStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Room state sent to a client when it subscribes, so a reconnecting client
+ * can resume without polling the REST endpoints.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomSnapshotDTO {
+    private String roomCode;
+    private QuizStatus status;
+    private Integer currentQuestionIndex;
+    private QuestionDTO currentQuestion;
+    private Long deadline;  // server epoch millis at which answers close
+    private List<LeaderBoardEntryDTO> leaderboard;  // top of the leaderboard
+    private Integer totalParticipants;
+    private LeaderBoardEntryDTO self;  // the caller's own entry, if they are a participant
+    private Long serverTime;
+}
@@ -0,0 +1,20 @@
+package com.example.QuizRush.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Participants who joined or left a room since the last delta. A snapshot
+ * lists the whole roster in {@code added} and nothing in {@code removed}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RosterDeltaDTO {
+    private List<ParticipantDTO> added;
+    private List<ParticipantDTO> removed;
+    private boolean snapshot;
+}
@@ -0,0 +1,34 @@
+package com.example.QuizRush.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Delivery health of the WebSocket sessions in a host's rooms, grouped by
+ * room and by transport. Server-wide counts are only published as metrics.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionHealthDTO {
+    private int sessions;
+    private int degraded;
+    private Map<String, Stats> rooms;
+    private Map<String, Stats> transports;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Stats {
+        private int sessions;
+        private int degraded;
+        private int queuedFrames;
+        private long pendingBytes;
+        // Age of the longest send still in progress
+        private long maxSendAgeMillis;
+        private double avgSendLatencyMillis;
+    }
+}
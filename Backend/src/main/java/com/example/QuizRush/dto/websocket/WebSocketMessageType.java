@@ -10,12 +10,16 @@ public enum WebSocketMessageType {
     // Participant messages
     PARTICIPANT_JOINED,
     PARTICIPANT_LEFT,
+    ROSTER_DELTA,
 
     // Leaderboard messages
     LEADERBOARD_UPDATE,
+    PERSONAL_RANK,
 
     // Status messages
     QUIZ_STARTED,
     QUIZ_ENDED,
+    // Full room state, sent to a single session that missed incremental updates
+    ROOM_SNAPSHOT,
     ERROR
 }
@@ -0,0 +1,111 @@
+package com.example.QuizRush.entities;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * One answer submitted during a live quiz, kept for post-quiz review.
+ *
+ * Rows are appended in JDBC batches by the answer history writer, so the
+ * participant, quiz and question are plain id columns rather than mapped
+ * relations; removing participants to reuse a quiz leaves their history intact.
+ */
+@Entity
+@Table(name = "answers", indexes = {
+        @Index(name = "idx_answers_quiz_participant", columnList = "quiz_id, participant_id")
+})
+public class Answer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "participant_id", nullable = false)
+    private Long participantId;
+
+    @Column(name = "quiz_id", nullable = false)
+    private Long quizId;
+
+    @Column(name = "question_id", nullable = false)
+    private Long questionId;
+
+    // Selected option indices, comma separated
+    @Column(name = "selected_options")
+    private String selectedOptions;
+
+    // Milliseconds from the question start to the answer
+    @Column(name = "latency_ms")
+    private long latencyMillis;
+
+    private int points;
+
+    @Column(name = "answered_at")
+    private Instant answeredAt;
+
+    public Answer() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getParticipantId() {
+        return participantId;
+    }
+
+    public void setParticipantId(Long participantId) {
+        this.participantId = participantId;
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public void setQuizId(Long quizId) {
+        this.quizId = quizId;
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(Long questionId) {
+        this.questionId = questionId;
+    }
+
+    public String getSelectedOptions() {
+        return selectedOptions;
+    }
+
+    public void setSelectedOptions(String selectedOptions) {
+        this.selectedOptions = selectedOptions;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public void setPoints(int points) {
+        this.points = points;
+    }
+
+    public Instant getAnsweredAt() {
+        return answeredAt;
+    }
+
+    public void setAnsweredAt(Instant answeredAt) {
+        this.answeredAt = answeredAt;
+    }
+}
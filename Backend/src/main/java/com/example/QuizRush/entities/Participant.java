@@ -23,6 +23,14 @@ public class Participant {
     // Score and other game-related fields can be added here
     private Integer score = 0;
 
+    // Bumped by every score update; existing rows start at 0
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version = 0L;
+
+    // Index within the quiz's roster, assigned at join and carried in the token
+    private Integer slot;
+
     public Participant() {}
 
     public Participant(String nickname, Quiz quiz) {
@@ -63,6 +71,18 @@ public class Participant {
         this.quiz = quiz;
     }
 
+    public Integer getSlot() {
+        return slot;
+    }
+
+    public void setSlot(Integer slot) {
+        this.slot = slot;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
     public Integer getScore() {
         return score;
     }
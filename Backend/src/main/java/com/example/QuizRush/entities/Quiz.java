@@ -20,6 +20,10 @@ public class Quiz {
     private String subject;
     private String grade;
 
+    // Leaderboard broadcast settings; null falls back to the server defaults
+    private Integer leaderboardTopK;
+    private Integer leaderboardFullBroadcastLimit;
+
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
@@ -75,6 +79,11 @@ public class Quiz {
 
 
     public boolean canStart() {
+        return canStart(participants);
+    }
+
+    // Checked against a freshly read roster, as joins are inserted outside this entity
+    public boolean canStart(List<Participant> participants) {
         return status == QuizStatus.WAITING &&
                 participants != null &&
                 !participants.isEmpty() &&
@@ -230,4 +239,20 @@ public class Quiz {
     public void setCurrentQuestionIndex(Integer currentQuestionIndex) {
         this.currentQuestionIndex = currentQuestionIndex;
     }
+
+    public Integer getLeaderboardTopK() {
+        return leaderboardTopK;
+    }
+
+    public void setLeaderboardTopK(Integer leaderboardTopK) {
+        this.leaderboardTopK = leaderboardTopK;
+    }
+
+    public Integer getLeaderboardFullBroadcastLimit() {
+        return leaderboardFullBroadcastLimit;
+    }
+
+    public void setLeaderboardFullBroadcastLimit(Integer leaderboardFullBroadcastLimit) {
+        this.leaderboardFullBroadcastLimit = leaderboardFullBroadcastLimit;
+    }
 }
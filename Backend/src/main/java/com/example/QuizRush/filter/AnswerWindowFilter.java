@@ -0,0 +1,108 @@
+package com.example.QuizRush.filter;
+
+import com.example.QuizRush.config.CORSConfig;
+import com.example.QuizRush.dto.AnswerResult;
+import com.example.QuizRush.live.AnswerWindow;
+import com.example.QuizRush.live.LiveRoom;
+import com.example.QuizRush.live.LiveRoomRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Turns away answers submitted outside their question's window before the
+ * request reaches Spring Security, JWT verification or the controller.
+ *
+ * Only answer submissions for rooms live on this node are checked, from
+ * in-memory state; anything it cannot decide on is passed through and
+ * handled by the controller as before.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class AnswerWindowFilter extends OncePerRequestFilter {
+    private static final String PATH_PREFIX = "/api/quiz-sessions/";
+    private static final String PATH_SUFFIX = "/submit-answer";
+
+    private final LiveRoomRegistry liveRoomRegistry;
+    private final AnswerWindow answerWindow;
+    private final ObjectMapper objectMapper;
+
+    public AnswerWindowFilter(LiveRoomRegistry liveRoomRegistry, AnswerWindow answerWindow, ObjectMapper objectMapper) {
+        this.liveRoomRegistry = liveRoomRegistry;
+        this.answerWindow = answerWindow;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !"POST".equals(request.getMethod())
+                || !path.startsWith(PATH_PREFIX)
+                || !path.endsWith(PATH_SUFFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Optional<LiveRoom> room = quizId(request.getRequestURI()).flatMap(liveRoomRegistry::peek);
+        if (room.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        CachedBodyHttpServletRequest cachedRequest = new CachedBodyHttpServletRequest(request);
+        Long questionId = questionId(cachedRequest.getBody());
+        if (questionId == null || answerWindow.admit(room.get(), questionId)) {
+            filterChain.doFilter(cachedRequest, response);
+            return;
+        }
+
+        reject(request, response);
+    }
+
+    // Same response the controller gives for a rejected answer
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String origin = request.getHeader(HttpHeaders.ORIGIN);
+        // Security and MVC CORS handling are skipped, so allow the frontend to read the response here
+        if (CORSConfig.ALLOWED_ORIGIN.equals(origin)) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ORIGIN);
+        }
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new AnswerResult(false, 0, 0, "This question is no longer accepting answers", null));
+    }
+
+    private static Optional<Long> quizId(String path) {
+        String id = path.substring(PATH_PREFIX.length(), path.length() - PATH_SUFFIX.length());
+        try {
+            return Optional.of(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Long questionId(byte[] body) {
+        try {
+            JsonNode questionId = objectMapper.readTree(body).get("questionId");
+            if (questionId == null || questionId.isNull()) {
+                return null;
+            }
+            return Long.valueOf(questionId.asText());
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.QuizRush.filter;
 
+import com.example.QuizRush.security.CustomUserDetailsService;
 import com.example.QuizRush.security.ParticipantAuthenticationToken;
+import com.example.QuizRush.security.VerifiedToken;
 import com.example.QuizRush.service.JwtService;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,7 +13,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,11 +20,11 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 @Component
 public class JwtFilter extends OncePerRequestFilter {
-    private final UserDetailsService userDetailsService;
+    private final CustomUserDetailsService userDetailsService;
     private final JwtService jwtService;
 
     @Autowired
-    public JwtFilter(UserDetailsService userDetailsService, JwtService jwtService) {
+    public JwtFilter(CustomUserDetailsService userDetailsService, JwtService jwtService) {
         this.userDetailsService = userDetailsService;
         this.jwtService = jwtService;
     }
@@ -41,38 +43,30 @@ public class JwtFilter extends OncePerRequestFilter {
         }
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
-
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            username = jwtService.extractUsername(jwt);
-            // Extract role claim to check if it's a participant
-            String role = null;
+            String jwt = authorizationHeader.substring(7);
+            // One signature and expiry check per token, cached until it expires
+            VerifiedToken token = null;
             try {
-                role = jwtService.extractClaim(jwt, claims -> claims.get("role", String.class));
-            } catch (Exception e) {
-                // Role might not be present
+                token = jwtService.verify(jwt);
+            } catch (JwtException | IllegalArgumentException e) {
+                // Invalid or expired token, the request stays unauthenticated
             }
+            String username = token != null ? token.getSubject() : null;
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                if("PARTICIPANT".equals(role)){
-                    if (jwtService.validateToken(jwt, username)) {
-                        ParticipantAuthenticationToken authentication =
-                                new ParticipantAuthenticationToken(username, jwt);
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                    }
+                if(token.isParticipant()){
+                    ParticipantAuthenticationToken authentication =
+                            ParticipantAuthenticationToken.from(token, jwt);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
                 else {
-                    UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-                    if (jwtService.validateToken(jwt, userDetails.getUsername())) {
+                    UserDetails userDetails = this.userDetailsService.loadVerifiedUser(username);
 
-                        UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
-                        usernamePasswordAuthenticationToken
-                                .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
-                    }
+                    UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    usernamePasswordAuthenticationToken
+                            .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
                 }
 
             }
@@ -0,0 +1,104 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.entities.Question;
+import com.example.QuizRush.exception.CustomException;
+
+import java.util.List;
+
+/**
+ * A question's correct options compiled into a bitmask, so that a submission
+ * can be scored with a couple of popcounts instead of list lookups.
+ *
+ * Option i maps to bit i. Bit 63 is reserved to flag selections that do not
+ * name a valid option, which is why a question has at most 63 options.
+ */
+public final class AnswerKey {
+    public static final int MAX_OPTIONS = Long.SIZE - 1;
+    private static final long INVALID_SELECTION = 1L << MAX_OPTIONS;
+
+    private final Long questionId;
+    private final int points;
+    private final int optionCount;
+    private final long correctMask;
+    private final int correctCount;
+    private final List<Integer> correctOptionIndices;
+
+    private AnswerKey(Long questionId, int points, int optionCount, long correctMask, List<Integer> correctOptionIndices) {
+        this.questionId = questionId;
+        this.points = points;
+        this.optionCount = optionCount;
+        this.correctMask = correctMask;
+        this.correctCount = Long.bitCount(correctMask);
+        this.correctOptionIndices = correctOptionIndices;
+    }
+
+    public static AnswerKey compile(Question question) {
+        int optionCount = question.getOptions() == null ? 0 : question.getOptions().size();
+        if (optionCount > MAX_OPTIONS) {
+            throw new CustomException("Question " + question.getId() + " has more than " + MAX_OPTIONS + " options");
+        }
+
+        long mask = 0L;
+        List<Integer> correct = question.getCorrectOptionIndices() == null ? List.of() : question.getCorrectOptionIndices();
+        for (Integer index : correct) {
+            if (index == null || index < 0 || index >= optionCount) {
+                throw new CustomException("Question " + question.getId() + " has an invalid correct option index: " + index);
+            }
+            mask |= 1L << index;
+        }
+        return new AnswerKey(question.getId(), question.getPoints(), optionCount, mask, List.copyOf(correct));
+    }
+
+    /**
+     * Encodes the selected option indices into the same bit layout as the key.
+     * Repeated indices count once; indices that are not valid options set the
+     * reserved bit and therefore count as a wrong selection.
+     */
+    public long encode(List<Integer> selectedOptionIndices) {
+        if (selectedOptionIndices == null) {
+            return 0L;
+        }
+        long mask = 0L;
+        for (int i = 0, n = selectedOptionIndices.size(); i < n; i++) {
+            Integer index = selectedOptionIndices.get(i);
+            if (index == null || index < 0 || index >= optionCount) {
+                mask |= INVALID_SELECTION;
+            } else {
+                mask |= 1L << index;
+            }
+        }
+        return mask;
+    }
+
+    public int correctlySelected(long selection) {
+        return Long.bitCount(selection & correctMask);
+    }
+
+    public boolean isFullyCorrect(long selection) {
+        return selection == correctMask;
+    }
+
+    /**
+     * Partial credit for the correct options picked, but nothing at all if any
+     * wrong option was picked.
+     */
+    public int pointsFor(long selection) {
+        if ((selection & ~correctMask) != 0 || correctCount == 0) {
+            return 0;
+        }
+        double fraction = (double) Long.bitCount(selection & correctMask) / correctCount;
+        return (int) Math.round(points * fraction);
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public int getCorrectCount() {
+        return correctCount;
+    }
+
+    public List<Integer> getCorrectOptionIndices() {
+        return correctOptionIndices;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.QuizRush.live;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides from live room state alone whether an answer arrived while its
+ * question was open. Rejections are counted in total here and per room by
+ * the room itself, published as quiz.room.answers.rejected.late.
+ */
+@Component
+public class AnswerWindow {
+    // Allowance for answers sent just before the deadline that arrive after it
+    private final long graceMillis;
+    private final Counter rejectedLate;
+
+    public AnswerWindow(MeterRegistry meterRegistry,
+                        @Value("${quiz.answers.late-grace-ms:1000}") long graceMillis) {
+        this.graceMillis = graceMillis;
+        this.rejectedLate = meterRegistry.counter("quiz.answers.rejected.late");
+    }
+
+    /**
+     * Returns true if the room still accepts answers to the question,
+     * otherwise counts the answer as late and returns false.
+     */
+    public boolean admit(LiveRoom room, Long questionId) {
+        if (room.acceptsAnswer(questionId, System.currentTimeMillis(), graceMillis)) {
+            return true;
+        }
+        room.recordLateAnswer();
+        rejectedLate.increment();
+        return false;
+    }
+}
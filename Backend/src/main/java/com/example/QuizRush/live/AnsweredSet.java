@@ -0,0 +1,57 @@
+package com.example.QuizRush.live;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Participants who have answered one question, as a bitset indexed by
+ * {@link LiveParticipant#getSlot()}.
+ *
+ * Marking a slot is a single compare-and-set on one word, so concurrent
+ * submissions from the same participant cannot both get through. A fresh set
+ * is created for every question. Slots are fixed once the quiz starts, so the
+ * bitset is sized up front; a slot beyond it still works through a small
+ * overflow set.
+ */
+public class AnsweredSet {
+    private final int questionIndex;
+    private final AtomicLongArray words;
+    private final Set<Integer> overflow = ConcurrentHashMap.newKeySet();
+
+    public AnsweredSet(int questionIndex, int slotCapacity) {
+        this.questionIndex = questionIndex;
+        this.words = new AtomicLongArray(Math.max((slotCapacity + 63) >>> 6, 1));
+    }
+
+    public int getQuestionIndex() {
+        return questionIndex;
+    }
+
+    /**
+     * Marks the slot as answered. Returns false if it already was.
+     */
+    public boolean markAnswered(int slot) {
+        int word = slot >>> 6;
+        if (word >= words.length()) {
+            return overflow.add(slot);
+        }
+        long bit = 1L << slot;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & bit) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(word, current, current | bit));
+        return true;
+    }
+
+    public boolean hasAnswered(int slot) {
+        int word = slot >>> 6;
+        if (word >= words.length()) {
+            return overflow.contains(slot);
+        }
+        return (words.get(word) & (1L << slot)) != 0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.exception.CustomException;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides who may join a room while it is waiting for the host to start.
+ *
+ * Capacity and nickname uniqueness are checked against an atomic counter and
+ * a concurrent set, so concurrent joins are decided without locks or
+ * database reads.
+ *
+ * Every admitted join stays in flight until its insert has settled, so a
+ * start that closes the admission can wait for all of them before reading
+ * the roster.
+ */
+public class JoinAdmission {
+    private final Long quizId;
+    private final String roomCode;
+    private final Long hostId;
+    private final int maxParticipants;
+    private final AtomicInteger admitted;
+    // Never reused, so a slot identifies one participant for the life of the quiz
+    private final AtomicInteger nextSlot;
+    private final Set<String> nicknames;
+    // Joins admitted whose insert has not settled yet; waiters are woken through this
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    public JoinAdmission(Long quizId, String roomCode, Long hostId, int maxParticipants,
+                         Collection<String> existingNicknames, int nextSlot) {
+        this.quizId = quizId;
+        this.roomCode = roomCode;
+        this.hostId = hostId;
+        this.maxParticipants = maxParticipants;
+        this.nicknames = ConcurrentHashMap.newKeySet();
+        this.nicknames.addAll(existingNicknames);
+        this.admitted = new AtomicInteger(nicknames.size());
+        this.nextSlot = new AtomicInteger(nextSlot);
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public String getRoomCode() {
+        return roomCode;
+    }
+
+    public boolean isHost(Long hostId) {
+        return this.hostId.equals(hostId);
+    }
+
+    /**
+     * Reserves the nickname and a place in the room and returns the
+     * participant's roster slot, or throws if either is unavailable. A
+     * reservation must be released if the join later fails, and every
+     * successful admit must be followed by {@link #settled()} once its insert
+     * has committed or failed.
+     */
+    public int admit(String nickname) {
+        // Counted before checking closed, so close() either refuses this join or waits for it
+        inFlight.incrementAndGet();
+        try {
+            if (closed)
+                throw new CustomException("Quiz is not open for joining");
+            if (!nicknames.add(nickname))
+                throw new CustomException("Nickname is already taken");
+
+            int current;
+            do {
+                current = admitted.get();
+                if (current >= maxParticipants) {
+                    nicknames.remove(nickname);
+                    throw new CustomException("Quiz room is full");
+                }
+            } while (!admitted.compareAndSet(current, current + 1));
+            return nextSlot.getAndIncrement();
+        } catch (RuntimeException e) {
+            settled();
+            throw e;
+        }
+    }
+
+    /**
+     * Marks an admitted join as settled, whether its insert committed or not.
+     */
+    public void settled() {
+        if (inFlight.decrementAndGet() == 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until every join admitted so far has settled. Only meaningful
+     * once the admission is closed. Returns false on timeout.
+     */
+    public boolean awaitSettled(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (this) {
+            while (inFlight.get() > 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public void release(String nickname) {
+        if (nicknames.remove(nickname)) {
+            admitted.decrementAndGet();
+        }
+    }
+
+    public void close() {
+        closed = true;
+    }
+
+    public void reopen() {
+        closed = false;
+    }
+
+    public int getAdmittedCount() {
+        return admitted.get();
+    }
+}
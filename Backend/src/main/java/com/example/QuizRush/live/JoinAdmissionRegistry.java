@@ -0,0 +1,114 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.entities.Participant;
+import com.example.QuizRush.entities.Quiz;
+import com.example.QuizRush.entities.enums.QuizStatus;
+import com.example.QuizRush.exception.CustomException;
+import com.example.QuizRush.repository.ParticipantRepository;
+import com.example.QuizRush.repository.QuizRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Join admissions of the rooms that are waiting to start, keyed by room code.
+ *
+ * An admission is registered when the host opens the quiz and dropped when it
+ * starts. If the node restarts while a room is waiting, it is rebuilt from the
+ * database on the next join.
+ */
+@Slf4j
+@Component
+public class JoinAdmissionRegistry {
+    private final ConcurrentHashMap<String, JoinAdmission> admissions;
+    private final QuizRepository quizRepository;
+    private final ParticipantRepository participantRepository;
+
+    public JoinAdmissionRegistry(QuizRepository quizRepository, ParticipantRepository participantRepository) {
+        this.quizRepository = quizRepository;
+        this.participantRepository = participantRepository;
+        this.admissions = new ConcurrentHashMap<>();
+    }
+
+    public JoinAdmission open(Quiz quiz) {
+        List<Participant> participants = participantRepository.findByQuizId(quiz.getId());
+        List<String> nicknames = participants.stream()
+                .map(Participant::getNickname)
+                .toList();
+        int nextSlot = participants.stream()
+                .map(Participant::getSlot)
+                .filter(slot -> slot != null)
+                .mapToInt(slot -> slot + 1)
+                .max()
+                .orElse(0);
+        JoinAdmission admission = new JoinAdmission(quiz.getId(), quiz.getRoomCode(), quiz.getHost().getId(),
+                quiz.getMaxParticipants(), nicknames, nextSlot);
+        admissions.put(quiz.getRoomCode(), admission);
+        return admission;
+    }
+
+    /**
+     * Returns the admission for a waiting room, or empty if the room is not
+     * open for joining.
+     */
+    public Optional<JoinAdmission> find(String roomCode) {
+        JoinAdmission admission = admissions.get(roomCode);
+        if (admission != null) {
+            return Optional.of(admission);
+        }
+        Quiz quiz = quizRepository.findByRoomCode(roomCode)
+                .orElseThrow(() -> new CustomException("Invalid Room code"));
+        if (quiz.getStatus() != QuizStatus.WAITING) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            admission = admissions.get(roomCode);
+            if (admission == null) {
+                log.info("Rebuilding join admission for room {} from the database", roomCode);
+                admission = open(quiz);
+            }
+            return Optional.of(admission);
+        }
+    }
+
+    public Optional<JoinAdmission> peek(String roomCode) {
+        return Optional.ofNullable(admissions.get(roomCode));
+    }
+
+    /**
+     * Stops admitting joins to the quiz's room, rebuilding its admission first
+     * if this node has none, and returns it. The closed admission stays
+     * registered so that joins are refused rather than rebuilt from the
+     * still waiting quiz, until the start either goes ahead and calls
+     * {@link #remove} or is abandoned and calls {@link #reopen}.
+     */
+    public synchronized JoinAdmission close(Quiz quiz) {
+        JoinAdmission admission = admissions.get(quiz.getRoomCode());
+        if (admission == null) {
+            admission = open(quiz);
+        }
+        admission.close();
+        return admission;
+    }
+
+    /**
+     * Admits joins again through an admission closed by a start that did not
+     * go ahead, keeping the nicknames and slots it already handed out.
+     */
+    public void reopen(JoinAdmission admission) {
+        admission.reopen();
+    }
+
+    /**
+     * Stops admitting joins to the room and drops its admission.
+     */
+    public void remove(String roomCode) {
+        JoinAdmission admission = admissions.remove(roomCode);
+        if (admission != null) {
+            admission.close();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.QuizRush.live;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory view of a participant while their quiz is live.
+ */
+public class LiveParticipant {
+    private final Long id;
+    private final String nickname;
+    // Dense index within the room, used to address per-participant arrays
+    private final int slot;
+    private final AtomicInteger score;
+
+    public LiveParticipant(Long id, String nickname, int slot, int score) {
+        this.id = id;
+        this.nickname = nickname;
+        this.slot = slot;
+        this.score = new AtomicInteger(score);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public int getScore() {
+        return score.get();
+    }
+
+    public void setScore(int score) {
+        this.score.set(score);
+    }
+
+    public int addScore(int points) {
+        return score.addAndGet(points);
+    }
+}
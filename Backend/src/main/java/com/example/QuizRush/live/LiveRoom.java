@@ -0,0 +1,222 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.dto.websocket.RoomSnapshotDTO;
+import com.example.QuizRush.entities.Question;
+import com.example.QuizRush.entities.enums.QuizStatus;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Authoritative state of a quiz while it is live. Reads are served from here;
+ * the database is only written when the room changes state.
+ *
+ * Mutations such as answers, advancing, timeouts and ending the quiz are
+ * applied through the room's {@link RoomMailbox}, one at a time.
+ */
+public class LiveRoom {
+    private final Long quizId;
+    private final String roomCode;
+    private final Long hostId;
+    private final QuizPlan plan;
+    private final RoomMailbox mailbox;
+    private final ConcurrentHashMap<Long, LiveParticipant> roster;
+    private final ConcurrentHashMap<String, LiveParticipant> rosterByNickname;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final ScoreAccumulator scoreAccumulator;
+    private final RankedLeaderboard leaderboard;
+    private final LongAdder lateAnswers = new LongAdder();
+
+    private final Integer leaderboardTopK;
+    private final Integer leaderboardFullBroadcastLimit;
+
+    private volatile QuizStatus status;
+    private volatile int currentQuestionIndex;
+    private volatile long currentDeadline;
+    // Shared part of the subscribe snapshot, rebuilt when the question or published leaderboard changes
+    private volatile RoomSnapshotDTO snapshot;
+
+    public LiveRoom(Long quizId, String roomCode, Long hostId, QuizStatus status,
+                    int currentQuestionIndex, QuizPlan plan, RoomMailbox mailbox,
+                    Integer leaderboardTopK, Integer leaderboardFullBroadcastLimit) {
+        this.quizId = quizId;
+        this.roomCode = roomCode;
+        this.hostId = hostId;
+        this.leaderboardTopK = leaderboardTopK;
+        this.leaderboardFullBroadcastLimit = leaderboardFullBroadcastLimit;
+        this.status = status;
+        this.currentQuestionIndex = currentQuestionIndex;
+        this.plan = plan;
+        this.mailbox = mailbox;
+        this.roster = new ConcurrentHashMap<>();
+        this.rosterByNickname = new ConcurrentHashMap<>();
+        this.scoreAccumulator = new ScoreAccumulator();
+        this.leaderboard = new RankedLeaderboard();
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public String getRoomCode() {
+        return roomCode;
+    }
+
+    public boolean isHost(Long hostId) {
+        return this.hostId.equals(hostId);
+    }
+
+    public QuizStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(QuizStatus status) {
+        this.status = status;
+    }
+
+    public int getCurrentQuestionIndex() {
+        return currentQuestionIndex;
+    }
+
+    public RoomMailbox getMailbox() {
+        return mailbox;
+    }
+
+    public QuizPlan getPlan() {
+        return plan;
+    }
+
+    public int getQuestionCount() {
+        return plan.getQuestionCount();
+    }
+
+    public Question getCurrentQuestion() {
+        int index = currentQuestionIndex;
+        if (index < 0 || index >= plan.getQuestionCount()) {
+            return null;
+        }
+        return plan.getQuestion(index);
+    }
+
+    public AnswerKey getAnswerKey(int questionIndex) {
+        return plan.getAnswerKey(questionIndex);
+    }
+
+    public boolean isLastQuestion() {
+        return currentQuestionIndex == plan.getQuestionCount() - 1;
+    }
+
+    public synchronized boolean advanceToNextQuestion() {
+        if (currentQuestionIndex >= plan.getQuestionCount() - 1) {
+            return false;
+        }
+        currentQuestionIndex++;
+        return true;
+    }
+
+    /**
+     * Adds a participant under the slot they were admitted with, or under a
+     * fresh slot if they have none.
+     */
+    public LiveParticipant addParticipant(Long participantId, String nickname, Integer slot, int score) {
+        LiveParticipant participant = roster.computeIfAbsent(participantId, id -> {
+            int assigned = slot != null
+                    ? slot
+                    : nextSlot.getAndIncrement();
+            nextSlot.accumulateAndGet(assigned + 1, Math::max);
+            return new LiveParticipant(id, nickname, assigned, score);
+        });
+        rosterByNickname.putIfAbsent(participant.getNickname(), participant);
+        leaderboard.update(participant.getId(), participant.getNickname(), participant.getScore(), 0);
+        return participant;
+    }
+
+    public LiveParticipant getParticipant(Long participantId) {
+        return roster.get(participantId);
+    }
+
+    public LiveParticipant getParticipantByNickname(String nickname) {
+        return rosterByNickname.get(nickname);
+    }
+
+    /**
+     * Upper bound of the slots handed out so far.
+     */
+    public int getSlotCount() {
+        return nextSlot.get();
+    }
+
+    public Collection<LiveParticipant> getParticipants() {
+        return roster.values();
+    }
+
+    /**
+     * Adds points to a participant's live score, queues the delta for the
+     * next flush to the database and moves them on the leaderboard.
+     */
+    public int awardPoints(LiveParticipant participant, int points, int totalTimeSpent) {
+        int total = participant.addScore(points);
+        scoreAccumulator.add(participant.getId(), points);
+        leaderboard.update(participant.getId(), participant.getNickname(), total, totalTimeSpent);
+        return total;
+    }
+
+    /**
+     * Whether an answer to the given question is still accepted: it must be
+     * the current question and its deadline, plus the grace period, must not
+     * have passed.
+     */
+    public boolean acceptsAnswer(Long questionId, long nowMillis, long graceMillis) {
+        if (status != QuizStatus.STARTED || questionId == null) {
+            return false;
+        }
+        int index = currentQuestionIndex;
+        if (index < 0 || index >= plan.getQuestionCount()) {
+            return false;
+        }
+        return questionId.equals(plan.getAnswerKey(index).getQuestionId())
+                && nowMillis <= currentDeadline + graceMillis;
+    }
+
+    public void recordLateAnswer() {
+        lateAnswers.increment();
+    }
+
+    public long getLateAnswerCount() {
+        return lateAnswers.sum();
+    }
+
+    public ScoreAccumulator getScoreAccumulator() {
+        return scoreAccumulator;
+    }
+
+    public RankedLeaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    public long getCurrentDeadline() {
+        return currentDeadline;
+    }
+
+    public void setCurrentDeadline(long currentDeadline) {
+        this.currentDeadline = currentDeadline;
+    }
+
+    public RoomSnapshotDTO getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(RoomSnapshotDTO snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public Integer getLeaderboardTopK() {
+        return leaderboardTopK;
+    }
+
+    public Integer getLeaderboardFullBroadcastLimit() {
+        return leaderboardFullBroadcastLimit;
+    }
+}
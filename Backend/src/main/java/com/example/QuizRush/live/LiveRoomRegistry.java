@@ -0,0 +1,206 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.config.LiveExecutors;
+import com.example.QuizRush.entities.Participant;
+import com.example.QuizRush.entities.Quiz;
+import com.example.QuizRush.entities.enums.QuizStatus;
+import com.example.QuizRush.exception.CustomException;
+import com.example.QuizRush.repository.QuizRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Registry of live rooms, keyed by quiz id and by room code.
+ *
+ * A room is registered when its quiz starts and dropped when it ends. If the
+ * node restarts mid-quiz, the room is rebuilt from the database on first access
+ * and a {@link LiveRoomRehydratedEvent} is published, so the quiz flow can
+ * restart its question timer.
+ * Room mailboxes share one worker pool, owned by the registry.
+ */
+@Slf4j
+@Component
+public class LiveRoomRegistry {
+    private static final String LATE_ANSWERS_METER = "quiz.room.answers.rejected.late";
+
+    private final ConcurrentHashMap<Long, LiveRoom> roomsByQuizId;
+    private final ConcurrentHashMap<String, LiveRoom> roomsByRoomCode;
+    private final QuizRepository quizRepository;
+    private final QuizPlanCache quizPlanCache;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService mailboxWorkers;
+    // How long a caller waits for its mutation to be applied
+    private final long mailboxCallTimeoutMillis;
+
+    public LiveRoomRegistry(QuizRepository quizRepository, QuizPlanCache quizPlanCache,
+                            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                            ApplicationEventPublisher eventPublisher, LiveExecutors liveExecutors,
+                            @Value("${quiz.rooms.mailbox-workers:16}") int mailboxWorkers,
+                            @Value("${quiz.rooms.mailbox-call-timeout-ms:10000}") long mailboxCallTimeoutMillis) {
+        this.quizRepository = quizRepository;
+        this.quizPlanCache = quizPlanCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        this.mailboxWorkers = liveExecutors.newWorkerPool("room-mailbox-", mailboxWorkers);
+        this.mailboxCallTimeoutMillis = mailboxCallTimeoutMillis;
+        this.roomsByQuizId = new ConcurrentHashMap<>();
+        this.roomsByRoomCode = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Builds and registers the live room for a quiz. Must be called while the
+     * quiz's lazy collections can still be initialized, in case its plan is
+     * not cached yet.
+     */
+    public LiveRoom open(Quiz quiz) {
+        return open(quiz, quiz.getParticipants());
+    }
+
+    /**
+     * Builds and registers the live room for a quiz with the given roster.
+     */
+    public LiveRoom open(Quiz quiz, List<Participant> roster) {
+        LiveRoom room = new LiveRoom(
+                quiz.getId(),
+                quiz.getRoomCode(),
+                quiz.getHost().getId(),
+                quiz.getStatus(),
+                quiz.getCurrentQuestionIndex(),
+                quizPlanCache.getOrCompile(quiz),
+                new RoomMailbox(quiz.getRoomCode(), mailboxWorkers, mailboxCallTimeoutMillis, meterRegistry),
+                quiz.getLeaderboardTopK(),
+                quiz.getLeaderboardFullBroadcastLimit()
+        );
+        if (roster != null) {
+            // Participants admitted with a slot first, so the rest can't take theirs
+            List<Participant> participants = roster.stream()
+                    .sorted(Comparator.comparing(Participant::getSlot, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .toList();
+            for (Participant participant : participants) {
+                room.addParticipant(participant.getId(), participant.getNickname(),
+                        participant.getSlot(), participant.getScore());
+            }
+        }
+
+        FunctionCounter.builder(LATE_ANSWERS_METER, room, LiveRoom::getLateAnswerCount)
+                .description("Answers rejected because the room's question had closed")
+                .tag("room", room.getRoomCode())
+                .register(meterRegistry);
+
+        roomsByQuizId.put(room.getQuizId(), room);
+        roomsByRoomCode.put(room.getRoomCode(), room);
+        return room;
+    }
+
+    /**
+     * Returns the registered room without consulting the database.
+     */
+    public Optional<LiveRoom> peek(Long quizId) {
+        return Optional.ofNullable(roomsByQuizId.get(quizId));
+    }
+
+    public Optional<LiveRoom> peekByRoomCode(String roomCode) {
+        return Optional.ofNullable(roomsByRoomCode.get(roomCode));
+    }
+
+    /**
+     * Returns the live room for a quiz, rebuilding it from the database if the
+     * quiz is in progress but not yet registered on this node.
+     */
+    public Optional<LiveRoom> find(Long quizId) {
+        LiveRoom room = roomsByQuizId.get(quizId);
+        if (room != null) {
+            return Optional.of(room);
+        }
+        return resumed(transactionTemplate.execute(status -> {
+            Quiz quiz = quizRepository.findById(quizId)
+                    .orElseThrow(() -> new CustomException("Quiz not found"));
+            return rehydrate(quiz);
+        }));
+    }
+
+    public Optional<LiveRoom> findByRoomCode(String roomCode) {
+        LiveRoom room = roomsByRoomCode.get(roomCode);
+        if (room != null) {
+            return Optional.of(room);
+        }
+        return resumed(transactionTemplate.execute(status -> {
+            Quiz quiz = quizRepository.findByRoomCode(roomCode)
+                    .orElseThrow(() -> new CustomException("Quiz not found for room: " + roomCode));
+            return rehydrate(quiz);
+        }));
+    }
+
+    public Collection<LiveRoom> getRooms() {
+        return roomsByQuizId.values();
+    }
+
+    public void remove(LiveRoom room) {
+        roomsByQuizId.remove(room.getQuizId(), room);
+        roomsByRoomCode.remove(room.getRoomCode(), room);
+        room.getMailbox().close();
+        meterRegistry.find(LATE_ANSWERS_METER).tag("room", room.getRoomCode()).meters()
+                .forEach(meterRegistry::remove);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        mailboxWorkers.shutdown();
+    }
+
+    public void remove(Long quizId) {
+        LiveRoom room = roomsByQuizId.get(quizId);
+        if (room != null) {
+            remove(room);
+        }
+    }
+
+    private Rehydrated rehydrate(Quiz quiz) {
+        if (quiz.getStatus() != QuizStatus.STARTED) {
+            return null;
+        }
+        synchronized (this) {
+            LiveRoom existing = roomsByQuizId.get(quiz.getId());
+            if (existing != null) {
+                return new Rehydrated(existing, false);
+            }
+            log.info("Rebuilding live room {} for quiz {} from the database", quiz.getRoomCode(), quiz.getId());
+            return new Rehydrated(open(quiz), true);
+        }
+    }
+
+    // Resumed outside the read-only transaction, so listeners can write
+    private Optional<LiveRoom> resumed(Rehydrated rehydrated) {
+        if (rehydrated == null) {
+            return Optional.empty();
+        }
+        if (rehydrated.created()) {
+            eventPublisher.publishEvent(new LiveRoomRehydratedEvent(rehydrated.room()));
+        }
+        // A room that could not be resumed has been ended and dropped
+        return rehydrated.room().getStatus() == QuizStatus.STARTED
+                ? Optional.of(rehydrated.room())
+                : Optional.empty();
+    }
+
+    private record Rehydrated(LiveRoom room, boolean created) {
+    }
+}
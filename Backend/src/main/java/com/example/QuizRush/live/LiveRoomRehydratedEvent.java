@@ -0,0 +1,8 @@
+package com.example.QuizRush.live;
+
+/**
+ * Published when a live room has been rebuilt from the database, typically
+ * after a restart. The room has no question timer yet.
+ */
+public record LiveRoomRehydratedEvent(LiveRoom room) {
+}
@@ -0,0 +1,88 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.dto.websocket.QuestionDTO;
+import com.example.QuizRush.entities.Question;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Immutable, pre-compiled form of a quiz's questions, built once when the quiz
+ * starts and shared by every room that runs it.
+ *
+ * Besides the questions and their answer keys, the plan holds each
+ * NEW_QUESTION message already serialized to JSON. Only the deadline and
+ * timestamp differ between broadcasts, so they are spliced into the cached
+ * bytes instead of serializing the question again.
+ */
+public class QuizPlan {
+    private static final byte[] MESSAGE_END = "}".getBytes(StandardCharsets.US_ASCII);
+
+    private final Long quizId;
+    private final List<Question> questions;
+    private final AnswerKey[] answerKeys;
+    // Shared between rooms, never modified after compilation
+    private final QuestionDTO[] questionDTOs;
+
+    // JSON up to the deadline value, one per question
+    private final byte[][] newQuestionPrefixes;
+    // JSON between the deadline and the timestamp values
+    private final byte[] newQuestionInfix;
+
+    public QuizPlan(Long quizId, List<Question> questions, QuestionDTO[] questionDTOs,
+                    byte[][] newQuestionPrefixes, byte[] newQuestionInfix) {
+        this.quizId = quizId;
+        this.questions = List.copyOf(questions);
+        this.answerKeys = new AnswerKey[this.questions.size()];
+        for (int i = 0; i < answerKeys.length; i++) {
+            answerKeys[i] = AnswerKey.compile(this.questions.get(i));
+        }
+        this.questionDTOs = questionDTOs;
+        this.newQuestionPrefixes = newQuestionPrefixes;
+        this.newQuestionInfix = newQuestionInfix;
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public int getQuestionCount() {
+        return questions.size();
+    }
+
+    public Question getQuestion(int index) {
+        return questions.get(index);
+    }
+
+    public AnswerKey getAnswerKey(int index) {
+        return answerKeys[index];
+    }
+
+    public QuestionDTO getQuestionDTO(int index) {
+        return questionDTOs[index];
+    }
+
+    /**
+     * Assembles the serialized NEW_QUESTION message for a question.
+     */
+    public byte[] newQuestionMessage(int index, long deadline, long timeStamp) {
+        byte[] prefix = newQuestionPrefixes[index];
+        byte[] deadlineBytes = Long.toString(deadline).getBytes(StandardCharsets.US_ASCII);
+        byte[] timeStampBytes = Long.toString(timeStamp).getBytes(StandardCharsets.US_ASCII);
+
+        byte[] message = new byte[prefix.length + deadlineBytes.length + newQuestionInfix.length
+                + timeStampBytes.length + MESSAGE_END.length];
+        int offset = 0;
+        offset = append(message, offset, prefix);
+        offset = append(message, offset, deadlineBytes);
+        offset = append(message, offset, newQuestionInfix);
+        offset = append(message, offset, timeStampBytes);
+        append(message, offset, MESSAGE_END);
+        return message;
+    }
+
+    private static int append(byte[] target, int offset, byte[] source) {
+        System.arraycopy(source, 0, target, offset, source.length);
+        return offset + source.length;
+    }
+}
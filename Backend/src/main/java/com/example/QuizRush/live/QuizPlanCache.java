@@ -0,0 +1,93 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.dto.websocket.QuestionDTO;
+import com.example.QuizRush.dto.websocket.WebSocketMessageType;
+import com.example.QuizRush.entities.Question;
+import com.example.QuizRush.entities.Quiz;
+import com.example.QuizRush.exception.CustomException;
+import com.example.QuizRush.mapper.QuestionMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cache of compiled quiz plans, keyed by quiz id.
+ *
+ * Entries are evicted by size and age, and invalidated whenever the quiz or
+ * its questions are edited. Rooms that are already live keep the plan they
+ * started with.
+ */
+@Slf4j
+@Component
+public class QuizPlanCache {
+    private final Cache<Long, QuizPlan> plans;
+    private final QuestionMapper questionMapper;
+    private final ObjectMapper objectMapper;
+
+    public QuizPlanCache(QuestionMapper questionMapper,
+                         ObjectMapper objectMapper,
+                         @Value("${quiz.plans.cache.max-size:1000}") long maxSize,
+                         @Value("${quiz.plans.cache.expire-after-access-ms:3600000}") long expireAfterAccessMillis) {
+        this.questionMapper = questionMapper;
+        this.objectMapper = objectMapper;
+        this.plans = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMillis(expireAfterAccessMillis))
+                .build();
+    }
+
+    /**
+     * Returns the cached plan for a quiz, compiling it on a miss. Must be
+     * called while the quiz's lazy collections can still be initialized.
+     */
+    public QuizPlan getOrCompile(Quiz quiz) {
+        return plans.get(quiz.getId(), quizId -> compile(quiz));
+    }
+
+    public void invalidate(Long quizId) {
+        plans.invalidate(quizId);
+    }
+
+    private QuizPlan compile(Quiz quiz) {
+        List<Question> questions = quiz.getQuestions() == null ? List.of() : quiz.getQuestions();
+        QuestionDTO[] questionDTOs = new QuestionDTO[questions.size()];
+        byte[][] prefixes = new byte[questions.size()][];
+        for (int i = 0; i < prefixes.length; i++) {
+            Question question = questions.get(i);
+            Hibernate.initialize(question.getOptions());
+            Hibernate.initialize(question.getCorrectOptionIndices());
+            questionDTOs[i] = questionMapper.toDTO(question);
+            prefixes[i] = newQuestionPrefix(questionDTOs[i]);
+        }
+        String infix = "},\"roomCode\":" + toJson(quiz.getRoomCode()) + ",\"timeStamp\":";
+
+        log.debug("Compiled plan for quiz {} with {} questions", quiz.getId(), questions.size());
+        return new QuizPlan(quiz.getId(), questions, questionDTOs, prefixes, infix.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // {"type":"NEW_QUESTION","payload":{<question fields>,"deadline":
+    private byte[] newQuestionPrefix(QuestionDTO questionDTO) {
+        String payload = toJson(questionDTO);
+        String prefix = "{\"type\":" + toJson(WebSocketMessageType.NEW_QUESTION)
+                + ",\"payload\":" + payload.substring(0, payload.length() - 1)
+                + ",\"deadline\":";
+        return prefix.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new CustomException("Failed to serialize quiz plan: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.dto.leaderboard.LeaderBoardEntryDTO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Incrementally maintained leaderboard of a live room.
+ *
+ * Participants with the same score and total time share a bucket and a rank,
+ * matching the tie rule of the generated leaderboard. Buckets are kept in a
+ * treap ordered by score (descending) then time (ascending), with each node
+ * tracking how many buckets and participants its subtree holds. That gives
+ * O(log n) updates and rank lookups, and O(log n + k) top-k reads.
+ */
+public class RankedLeaderboard {
+
+    private static final class Member {
+        private final Long participantId;
+        private final String nickname;
+        private int score;
+        private int totalTimeSpent;
+
+        private Member(Long participantId, String nickname) {
+            this.participantId = participantId;
+            this.nickname = nickname;
+        }
+    }
+
+    private static final class Node {
+        private final int score;
+        private final int totalTimeSpent;
+        private final int priority;
+        // Members of the bucket, ordered by participant id for a stable listing
+        private final TreeMap<Long, Member> members = new TreeMap<>();
+        private Node left;
+        private Node right;
+        private int subtreeBuckets;
+        private int subtreeMembers;
+
+        private Node(int score, int totalTimeSpent) {
+            this.score = score;
+            this.totalTimeSpent = totalTimeSpent;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    private final Map<Long, Member> membersById = new HashMap<>();
+    private Node root;
+
+    /**
+     * Inserts a participant or moves them to their new score and time.
+     */
+    public synchronized void update(Long participantId, String nickname, int score, int totalTimeSpent) {
+        Member member = membersById.get(participantId);
+        if (member == null) {
+            member = new Member(participantId, nickname);
+            membersById.put(participantId, member);
+        } else {
+            if (member.score == score && member.totalTimeSpent == totalTimeSpent) {
+                return;
+            }
+            root = removeMember(root, member);
+        }
+        member.score = score;
+        member.totalTimeSpent = totalTimeSpent;
+        root = addMember(root, member);
+    }
+
+    public synchronized void remove(Long participantId) {
+        Member member = membersById.remove(participantId);
+        if (member != null) {
+            root = removeMember(root, member);
+        }
+    }
+
+    public synchronized int size() {
+        return membersById.size();
+    }
+
+    /**
+     * Returns the participant's rank, or 0 if they are not on the board.
+     */
+    public synchronized int rankOf(Long participantId) {
+        Member member = membersById.get(participantId);
+        if (member == null) {
+            return 0;
+        }
+        return bucketsBefore(member.score, member.totalTimeSpent) + 1;
+    }
+
+    /**
+     * Returns the participant's own entry, or null if they are not on the board.
+     */
+    public synchronized LeaderBoardEntryDTO entryOf(Long participantId) {
+        Member member = membersById.get(participantId);
+        if (member == null) {
+            return null;
+        }
+        return toEntry(member, bucketsBefore(member.score, member.totalTimeSpent) + 1);
+    }
+
+    /**
+     * Returns the first {@code limit} entries in leaderboard order.
+     */
+    public synchronized List<LeaderBoardEntryDTO> top(int limit) {
+        List<LeaderBoardEntryDTO> entries = new ArrayList<>(Math.min(limit, membersById.size()));
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        int rank = 0;
+        while ((node != null || !stack.isEmpty()) && entries.size() < limit) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            rank++;
+            for (Member member : node.members.values()) {
+                if (entries.size() == limit) {
+                    break;
+                }
+                entries.add(toEntry(member, rank));
+            }
+            node = node.right;
+        }
+        return entries;
+    }
+
+    public synchronized List<LeaderBoardEntryDTO> all() {
+        return top(membersById.size());
+    }
+
+    /**
+     * Returns the entries directly above and below the participant, in
+     * leaderboard order, without the participant's own entry.
+     */
+    public synchronized List<LeaderBoardEntryDTO> neighboursOf(Long participantId) {
+        Member member = membersById.get(participantId);
+        if (member == null) {
+            return List.of();
+        }
+        Node bucket = find(member.score, member.totalTimeSpent);
+        int rank = bucketsBefore(member.score, member.totalTimeSpent) + 1;
+        List<LeaderBoardEntryDTO> neighbours = new ArrayList<>(2);
+
+        Map.Entry<Long, Member> above = bucket.members.lowerEntry(participantId);
+        if (above != null) {
+            neighbours.add(toEntry(above.getValue(), rank));
+        } else {
+            Node previous = predecessor(bucket);
+            if (previous != null) {
+                neighbours.add(toEntry(previous.members.lastEntry().getValue(), rank - 1));
+            }
+        }
+
+        Map.Entry<Long, Member> below = bucket.members.higherEntry(participantId);
+        if (below != null) {
+            neighbours.add(toEntry(below.getValue(), rank));
+        } else {
+            Node next = successor(bucket);
+            if (next != null) {
+                neighbours.add(toEntry(next.members.firstEntry().getValue(), rank + 1));
+            }
+        }
+        return neighbours;
+    }
+
+    private Node find(int score, int totalTimeSpent) {
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(score, totalTimeSpent, node);
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    private Node predecessor(Node bucket) {
+        Node candidate = null;
+        Node node = root;
+        while (node != null) {
+            if (compare(bucket.score, bucket.totalTimeSpent, node) > 0) {
+                candidate = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return candidate;
+    }
+
+    private Node successor(Node bucket) {
+        Node candidate = null;
+        Node node = root;
+        while (node != null) {
+            if (compare(bucket.score, bucket.totalTimeSpent, node) < 0) {
+                candidate = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return candidate;
+    }
+
+    private int bucketsBefore(int score, int totalTimeSpent) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(score, totalTimeSpent, node);
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                count += buckets(node.left);
+                if (cmp == 0) {
+                    return count;
+                }
+                count++;
+                node = node.right;
+            }
+        }
+        return count;
+    }
+
+    private Node addMember(Node node, Member member) {
+        if (node == null) {
+            Node created = new Node(member.score, member.totalTimeSpent);
+            created.members.put(member.participantId, member);
+            return recompute(created);
+        }
+        int cmp = compare(member.score, member.totalTimeSpent, node);
+        if (cmp == 0) {
+            node.members.put(member.participantId, member);
+        } else if (cmp < 0) {
+            node.left = addMember(node.left, member);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = addMember(node.right, member);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        return recompute(node);
+    }
+
+    private Node removeMember(Node node, Member member) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(member.score, member.totalTimeSpent, node);
+        if (cmp < 0) {
+            node.left = removeMember(node.left, member);
+        } else if (cmp > 0) {
+            node.right = removeMember(node.right, member);
+        } else {
+            node.members.remove(member.participantId);
+            if (node.members.isEmpty()) {
+                return merge(node.left, node.right);
+            }
+        }
+        return recompute(node);
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return recompute(left);
+        }
+        right.left = merge(left, right.left);
+        return recompute(right);
+    }
+
+    private Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = recompute(node);
+        return recompute(pivot);
+    }
+
+    private Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = recompute(node);
+        return recompute(pivot);
+    }
+
+    private static Node recompute(Node node) {
+        node.subtreeBuckets = 1 + buckets(node.left) + buckets(node.right);
+        node.subtreeMembers = node.members.size() + members(node.left) + members(node.right);
+        return node;
+    }
+
+    private static int buckets(Node node) {
+        return node == null ? 0 : node.subtreeBuckets;
+    }
+
+    private static int members(Node node) {
+        return node == null ? 0 : node.subtreeMembers;
+    }
+
+    // Higher score first, then lower total time
+    private static int compare(int score, int totalTimeSpent, Node node) {
+        if (score != node.score) {
+            return score > node.score ? -1 : 1;
+        }
+        return Integer.compare(totalTimeSpent, node.totalTimeSpent);
+    }
+
+    private static LeaderBoardEntryDTO toEntry(Member member, int rank) {
+        return new LeaderBoardEntryDTO(
+                member.participantId,
+                member.nickname,
+                member.score,
+                member.totalTimeSpent,
+                rank
+        );
+    }
+}
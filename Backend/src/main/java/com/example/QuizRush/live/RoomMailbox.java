@@ -0,0 +1,168 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.exception.CustomException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Serial mailbox of one live room. Every mutation of the room is queued here
+ * and applied one at a time, in arrival order, by whichever shared worker is
+ * draining the mailbox, so room state needs no locks between mutations.
+ *
+ * At most one worker drains a mailbox at a time. After a bounded number of
+ * tasks it yields the worker so busy rooms cannot starve the others.
+ */
+@Slf4j
+public class RoomMailbox {
+    // Tasks run per turn before the worker is handed back to the pool
+    private static final int TASKS_PER_TURN = 64;
+    private static final ThreadLocal<RoomMailbox> DRAINING = new ThreadLocal<>();
+
+    private final String roomCode;
+    private final Executor workers;
+    private final long callTimeoutMillis;
+    private final ConcurrentLinkedQueue<Task> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final MeterRegistry meterRegistry;
+    private final Timer waitTimer;
+    private final Timer processingTimer;
+    private final List<Meter> meters;
+
+    public RoomMailbox(String roomCode, Executor workers, long callTimeoutMillis, MeterRegistry meterRegistry) {
+        this.roomCode = roomCode;
+        this.workers = workers;
+        this.callTimeoutMillis = callTimeoutMillis;
+        this.meterRegistry = meterRegistry;
+        Gauge depthGauge = Gauge.builder("quiz.room.mailbox.depth", depth, AtomicInteger::get)
+                .description("Mutations queued for the room")
+                .tag("room", roomCode)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("quiz.room.mailbox.wait")
+                .description("Time a mutation waited in the room's mailbox")
+                .tag("room", roomCode)
+                .register(meterRegistry);
+        this.processingTimer = Timer.builder("quiz.room.mailbox.processing")
+                .description("Time spent applying a mutation to the room")
+                .tag("room", roomCode)
+                .register(meterRegistry);
+        this.meters = List.of(depthGauge, waitTimer, processingTimer);
+    }
+
+    /**
+     * Queues a mutation and returns its result when it has been applied.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> action) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        enqueue(new Task(() -> {
+            try {
+                result.complete(action.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }, System.nanoTime()));
+        return result;
+    }
+
+    /**
+     * Queues a mutation without waiting for it. Failures are logged.
+     */
+    public void execute(Runnable action) {
+        enqueue(new Task(() -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.error("Mutation of room {} failed: {}", roomCode, e.getMessage(), e);
+            }
+        }, System.nanoTime()));
+    }
+
+    /**
+     * Applies a mutation and waits for its result. Called from within this
+     * mailbox, the mutation runs straight away. Exceptions thrown by the
+     * mutation are rethrown to the caller.
+     */
+    public <T> T call(Supplier<T> action) {
+        if (DRAINING.get() == this) {
+            return action.get();
+        }
+        try {
+            return submit(action).get(callTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Interrupted while waiting for room " + roomCode);
+        } catch (TimeoutException e) {
+            throw new CustomException("Room " + roomCode + " is busy, try again");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CustomException("Room " + roomCode + " failed: " + e.getCause().getMessage());
+        }
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Unregisters the mailbox's meters. Mutations still queued are applied.
+     */
+    public void close() {
+        meters.forEach(meterRegistry::remove);
+    }
+
+    private void enqueue(Task task) {
+        tasks.add(task);
+        depth.incrementAndGet();
+        if (scheduled.compareAndSet(false, true)) {
+            workers.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        DRAINING.set(this);
+        try {
+            Task task;
+            for (int i = 0; i < TASKS_PER_TURN && (task = tasks.poll()) != null; i++) {
+                depth.decrementAndGet();
+                long started = System.nanoTime();
+                waitTimer.record(started - task.enqueuedNanos(), TimeUnit.NANOSECONDS);
+                task.action().run();
+                processingTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            DRAINING.remove();
+            scheduled.set(false);
+            // Reschedule if tasks are left over or arrived after the last poll
+            if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+                workers.execute(this::drain);
+            }
+        }
+    }
+
+    private record Task(Runnable action, long enqueuedNanos) {
+    }
+}
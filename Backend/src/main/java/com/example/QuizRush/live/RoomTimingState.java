@@ -0,0 +1,166 @@
+package com.example.QuizRush.live;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Question timing for one room: the running countdown, when the current
+ * question started, who has answered it, and each participant's total answer
+ * time.
+ *
+ * Total times live in a primitive array indexed by
+ * {@link LiveParticipant#getSlot()} and are updated under the state's lock.
+ * The answered set is lock-free and replaced for every question.
+ */
+public class RoomTimingState {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String roomCode;
+
+    // Bumped whenever a countdown starts or stops, so stale countdowns can tell they are stale
+    private final AtomicInteger countdownGeneration = new AtomicInteger();
+    private volatile HashedWheelTimer.Timeout countdown;
+
+    private volatile long questionStartMillis;
+    private volatile int durationSeconds;
+    private volatile long lastActivityMillis;
+    private volatile AnsweredSet answered;
+
+    // Guarded by this
+    private int[] totalTimes;
+
+    public RoomTimingState(String roomCode) {
+        this.roomCode = roomCode;
+        this.totalTimes = new int[INITIAL_CAPACITY];
+        this.lastActivityMillis = System.currentTimeMillis();
+    }
+
+    public String getRoomCode() {
+        return roomCode;
+    }
+
+    /**
+     * Starts timing a new question and returns the generation its countdown
+     * must present to {@link #setCountdown} and {@link #finishCountdown}.
+     */
+    public int startQuestion(int questionIndex, int slotCount, long startMillis, int durationSeconds) {
+        synchronized (this) {
+            this.questionStartMillis = startMillis;
+            this.durationSeconds = durationSeconds;
+        }
+        answered = new AnsweredSet(questionIndex, slotCount);
+        lastActivityMillis = startMillis;
+        return countdownGeneration.incrementAndGet();
+    }
+
+    /**
+     * Records the wheel timeout for a countdown, cancelling it straight away
+     * if the countdown was stopped in the meantime.
+     */
+    public void setCountdown(int generation, HashedWheelTimer.Timeout timeout) {
+        countdown = timeout;
+        if (countdownGeneration.get() != generation) {
+            timeout.cancel();
+        }
+    }
+
+    public boolean isCurrentCountdown(int generation) {
+        return countdownGeneration.get() == generation;
+    }
+
+    /**
+     * Ends the countdown of the given generation. Returns false if it was
+     * already stopped or replaced.
+     */
+    public boolean finishCountdown(int generation) {
+        return countdownGeneration.compareAndSet(generation, generation + 1);
+    }
+
+    public void stopCountdown() {
+        countdownGeneration.incrementAndGet();
+        HashedWheelTimer.Timeout current = countdown;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    public long getQuestionStartMillis() {
+        return questionStartMillis;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public long getDeadlineMillis() {
+        return questionStartMillis + TimeUnit.SECONDS.toMillis(durationSeconds);
+    }
+
+    /**
+     * Seconds since the current question started, capped at its duration.
+     */
+    public int elapsedSeconds(long nowMillis) {
+        int elapsed = (int) ((nowMillis - questionStartMillis) / 1000);
+        return Math.min(Math.max(elapsed, 0), durationSeconds);
+    }
+
+    public int remainingSeconds(long nowMillis) {
+        long remainingMillis = getDeadlineMillis() - nowMillis;
+        return remainingMillis > 0 ? (int) ((remainingMillis + 999) / 1000) : 0;
+    }
+
+    /**
+     * Claims the participant's single answer to the given question. Returns
+     * false if they already answered it or it is not the current question.
+     */
+    public boolean markAnswered(int questionIndex, int slot) {
+        AnsweredSet current = answered;
+        return current != null
+                && current.getQuestionIndex() == questionIndex
+                && current.markAnswered(slot);
+    }
+
+    public boolean hasAnswered(int questionIndex, int slot) {
+        AnsweredSet current = answered;
+        return current != null
+                && current.getQuestionIndex() == questionIndex
+                && current.hasAnswered(slot);
+    }
+
+    /**
+     * Adds the time spent on the current question to the participant's total
+     * and returns the new total.
+     */
+    public synchronized int recordAnswer(int slot, int timeSpent) {
+        ensureCapacity(slot);
+        // Don't record times greater than the question duration
+        int capped = Math.min(Math.max(timeSpent, 0), durationSeconds);
+        totalTimes[slot] += capped;
+        lastActivityMillis = System.currentTimeMillis();
+        return totalTimes[slot];
+    }
+
+    public synchronized int getTotalTime(int slot) {
+        return slot < totalTimes.length ? totalTimes[slot] : 0;
+    }
+
+    public long getLastActivityMillis() {
+        return lastActivityMillis;
+    }
+
+    /**
+     * Number of participant slots currently allocated.
+     */
+    public synchronized int getSlotCapacity() {
+        return totalTimes.length;
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < totalTimes.length) {
+            return;
+        }
+        int capacity = Math.max(totalTimes.length * 2, slot + 1);
+        totalTimes = Arrays.copyOf(totalTimes, capacity);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.QuizRush.live;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Score deltas earned in a room that have not been written to the
+ * participants table yet.
+ */
+public class ScoreAccumulator {
+    private final ConcurrentHashMap<Long, Integer> pending = new ConcurrentHashMap<>();
+
+    public void add(Long participantId, int delta) {
+        if (delta != 0) {
+            pending.merge(participantId, delta, Integer::sum);
+        }
+    }
+
+    /**
+     * Removes and returns every pending delta. Deltas added while draining
+     * either make it into the result or stay pending for the next drain.
+     */
+    public Map<Long, Integer> drain() {
+        Map<Long, Integer> drained = new HashMap<>();
+        for (Long participantId : pending.keySet()) {
+            Integer delta = pending.remove(participantId);
+            if (delta != null) {
+                drained.put(participantId, delta);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Puts drained deltas back, e.g. after a failed flush.
+     */
+    public void restore(Map<Long, Integer> deltas) {
+        deltas.forEach(this::add);
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+}
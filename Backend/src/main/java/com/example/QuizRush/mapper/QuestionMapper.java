@@ -13,6 +13,7 @@ public interface QuestionMapper {
     @Mapping(target = "duration", source = "duration")
     @Mapping(target = "points", source = "points")
     @Mapping(target = "options", source = "options")
+    @Mapping(target = "deadline", ignore = true)
     QuestionDTO toDTO(Question question);
 
     Question toEntity(QuestionDTO questionDTO);
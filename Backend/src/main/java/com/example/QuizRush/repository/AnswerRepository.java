@@ -0,0 +1,12 @@
+package com.example.QuizRush.repository;
+
+import com.example.QuizRush.entities.Answer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AnswerRepository extends JpaRepository<Answer, Long> {
+    List<Answer> findByQuizIdAndParticipantIdOrderByAnsweredAtAsc(Long quizId, Long participantId);
+}
@@ -3,19 +3,27 @@ package com.example.QuizRush.repository;
 import com.example.QuizRush.entities.Participant;
 import com.example.QuizRush.entities.Quiz;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ParticipantRepository extends JpaRepository<Participant,Long> {
+public interface ParticipantRepository extends JpaRepository<Participant,Long>, ParticipantScoreRepository {
     Optional<Participant> findByNicknameAndQuiz(String nickname, Quiz quiz);
     List<Participant> findByQuiz(Quiz quiz);
     Optional<Participant> findByNickname(String nickname);
 
     @Query("SELECT p FROM Participant p WHERE p.quiz.id = :quizId")
     List<Participant> findByQuizId(@Param("quizId") Long quizId);
+
+    // Atomic increment, no read of the current score
+    @Transactional
+    @Modifying
+    @Query("UPDATE Participant p SET p.score = p.score + :delta, p.version = p.version + 1 WHERE p.id = :participantId")
+    int addScore(@Param("participantId") Long participantId, @Param("delta") int delta);
 }
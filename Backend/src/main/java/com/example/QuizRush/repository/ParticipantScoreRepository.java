@@ -0,0 +1,15 @@
+package com.example.QuizRush.repository;
+
+import java.util.Map;
+
+/**
+ * Bulk score updates, implemented with plain JDBC by
+ * {@link ParticipantScoreRepositoryImpl}.
+ */
+public interface ParticipantScoreRepository {
+    /**
+     * Adds each delta to its participant's score, many participants per
+     * statement. Returns the number of rows updated.
+     */
+    int addScores(Map<Long, Integer> deltasByParticipantId);
+}
@@ -0,0 +1,68 @@
+package com.example.QuizRush.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies score deltas with one multi-row UPDATE per chunk, joining the
+ * participants table against a VALUES list. Every increment is done by the
+ * database, so concurrent flushes never lose updates and no row is read or
+ * locked up front.
+ */
+public class ParticipantScoreRepositoryImpl implements ParticipantScoreRepository {
+    private static final String ADD_SCORES_PREFIX =
+            "UPDATE participants AS p SET score = p.score + d.delta, version = p.version + 1"
+                    + " FROM (VALUES ";
+    private static final String ADD_SCORES_SUFFIX = ") AS d(id, delta) WHERE p.id = d.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Rows per statement, two bind parameters each
+    private final int chunkSize;
+
+    public ParticipantScoreRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                          @Value("${quiz.scores.update-chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public int addScores(Map<Long, Integer> deltasByParticipantId) {
+        if (deltasByParticipantId.isEmpty()) {
+            return 0;
+        }
+
+        int updated = 0;
+        List<Object> args = new ArrayList<>(Math.min(deltasByParticipantId.size(), chunkSize) * 2);
+        for (Map.Entry<Long, Integer> delta : deltasByParticipantId.entrySet()) {
+            args.add(delta.getKey());
+            args.add(delta.getValue());
+            if (args.size() == chunkSize * 2) {
+                updated += update(args);
+                args.clear();
+            }
+        }
+        if (!args.isEmpty()) {
+            updated += update(args);
+        }
+        return updated;
+    }
+
+    private int update(List<Object> args) {
+        int rows = args.size() / 2;
+        StringBuilder sql = new StringBuilder(ADD_SCORES_PREFIX.length() + ADD_SCORES_SUFFIX.length() + rows * 26);
+        sql.append(ADD_SCORES_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            // Typed so Postgres does not infer text for the VALUES columns
+            sql.append("(CAST(? AS bigint), CAST(? AS integer))");
+        }
+        sql.append(ADD_SCORES_SUFFIX);
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
@@ -1,12 +1,31 @@
 package com.example.QuizRush.repository;
 
 import com.example.QuizRush.entities.Quiz;
+import com.example.QuizRush.entities.enums.QuizStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface QuizRepository extends JpaRepository<Quiz,Long>{
     Optional<Quiz> findByRoomCode(String roomCode);
+
+    @Query("SELECT q.roomCode FROM Quiz q WHERE q.host.username = :username")
+    List<String> findRoomCodesByHostUsername(@Param("username") String username);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Quiz q SET q.currentQuestionIndex = :index, q.updatedAt = CURRENT_TIMESTAMP WHERE q.id = :quizId")
+    int updateCurrentQuestionIndex(@Param("quizId") Long quizId, @Param("index") Integer index);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Quiz q SET q.status = :status, q.updatedAt = CURRENT_TIMESTAMP WHERE q.id = :quizId")
+    int updateStatus(@Param("quizId") Long quizId, @Param("status") QuizStatus status);
 }
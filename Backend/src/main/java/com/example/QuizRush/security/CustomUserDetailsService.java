@@ -1,6 +1,9 @@
 package com.example.QuizRush.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureOrder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -10,12 +13,24 @@ import org.springframework.stereotype.Service;
 import com.example.QuizRush.entities.User;
 import com.example.QuizRush.repository.UserRepository;
 
+import java.time.Duration;
+
 @Service
 public class CustomUserDetailsService implements UserDetailsService{
 
     private final UserRepository userRepository;
-    public CustomUserDetailsService(UserRepository userRepository) {
+
+    // Hosts resolved for already verified tokens; login always reads the users table
+    private final Cache<String, UserDetails> verifiedUsers;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    @Value("${security.user-details.cache-ttl-ms:60000}") long cacheTtlMillis,
+                                    @Value("${security.user-details.cache-max-size:10000}") long cacheMaxSize) {
         this.userRepository = userRepository;
+        this.verifiedUsers = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(cacheTtlMillis))
+                .build();
     }
 
     @Override
@@ -24,5 +39,13 @@ public class CustomUserDetailsService implements UserDetailsService{
         .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
         return new CustomUserDetails(user); 
     }
+
+    /**
+     * Loads a host for a request that carries a verified token, from a
+     * short-lived cache instead of the users table.
+     */
+    public UserDetails loadVerifiedUser(String username) throws UsernameNotFoundException {
+        return verifiedUsers.get(username, this::loadUserByUsername);
+    }
     
 }
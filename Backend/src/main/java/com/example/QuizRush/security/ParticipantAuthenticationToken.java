@@ -8,14 +8,59 @@ import java.util.Collections;
 public class ParticipantAuthenticationToken extends AbstractAuthenticationToken {
     private final String principal;
     private final String token;
+    private final Long participantId;
+    private final Long quizId;
+    private final Integer slot;
 
     public ParticipantAuthenticationToken(String nickname, String token) {
+        this(nickname, token, null, null, null);
+    }
+
+    public ParticipantAuthenticationToken(String nickname, String token, Long participantId, Long quizId, Integer slot) {
         super(Collections.singletonList(new SimpleGrantedAuthority("ROLE_PARTICIPANT")));
         this.principal = nickname;
         this.token = token;
+        this.participantId = participantId;
+        this.quizId = quizId;
+        this.slot = slot;
         setAuthenticated(true);
     }
 
+    public static ParticipantAuthenticationToken from(VerifiedToken verified, String token) {
+        return new ParticipantAuthenticationToken(verified.getSubject(), token,
+                verified.getParticipantId(), verified.getQuizId(), verified.getSlot());
+    }
+
+    /**
+     * User destination name of a participant. Nicknames are only unique
+     * within a quiz, so user queues are addressed by participant id.
+     */
+    public static String userName(Long participantId) {
+        return "participant-" + participantId;
+    }
+
+    @Override
+    public String getName() {
+        // Tokens issued before identity claims only know the nickname
+        return participantId != null ? userName(participantId) : principal;
+    }
+
+    public String getNickname() {
+        return principal;
+    }
+
+    public Long getParticipantId() {
+        return participantId;
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public Integer getSlot() {
+        return slot;
+    }
+
     @Override
     public Object getCredentials() {
         return token;
@@ -0,0 +1,65 @@
+package com.example.QuizRush.security;
+
+import com.example.QuizRush.service.JwtService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Authenticates a STOMP session once, from the Authorization header of its
+ * CONNECT frame. The resulting principal is attached to every later message
+ * of the session. Sessions without a token stay anonymous and can still
+ * subscribe to room topics.
+ */
+@Slf4j
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+    private final JwtService jwtService;
+    private final CustomUserDetailsService userDetailsService;
+
+    public StompAuthChannelInterceptor(JwtService jwtService, CustomUserDetailsService userDetailsService) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        String authorizationHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            return message;
+        }
+
+        String jwt = authorizationHeader.substring(7);
+        try {
+            VerifiedToken token = jwtService.verify(jwt);
+            if (token.isParticipant()) {
+                accessor.setUser(ParticipantAuthenticationToken.from(token, jwt));
+            } else {
+                UserDetails userDetails = userDetailsService.loadVerifiedUser(token.getSubject());
+                accessor.setUser(new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities()));
+            }
+        } catch (Exception e) {
+            log.debug("Rejected STOMP CONNECT: {}", e.getMessage());
+            throw new BadCredentialsException("Invalid token");
+        }
+
+        if (accessor.getUser() == null) {
+            throw new BadCredentialsException("Invalid token");
+        }
+        return message;
+    }
+}
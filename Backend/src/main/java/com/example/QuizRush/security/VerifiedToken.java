@@ -0,0 +1,62 @@
+package com.example.QuizRush.security;
+
+/**
+ * Claims of a JWT whose signature and expiry have been checked.
+ */
+public class VerifiedToken {
+    private final String subject;
+    private final String role;
+    private final Long userId;
+    // Participant identity, absent from host tokens
+    private final Long participantId;
+    private final Long quizId;
+    private final Integer slot;
+    private final long expiresAtMillis;
+
+    public VerifiedToken(String subject, String role, Long userId, Long participantId, Long quizId,
+                         Integer slot, long expiresAtMillis) {
+        this.subject = subject;
+        this.role = role;
+        this.userId = userId;
+        this.participantId = participantId;
+        this.quizId = quizId;
+        this.slot = slot;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getParticipantId() {
+        return participantId;
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public Integer getSlot() {
+        return slot;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isParticipant() {
+        return "PARTICIPANT".equals(role);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+}
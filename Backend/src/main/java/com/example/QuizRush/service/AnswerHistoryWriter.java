@@ -0,0 +1,251 @@
+package com.example.QuizRush.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Appends the answer history off the answer path.
+ *
+ * Answers go through a bounded queue that a single writer thread drains into
+ * JDBC batches. Appending never waits: it runs on the room's mailbox, so an
+ * answer that finds the queue full is dropped from the history rather than
+ * holding up the room. A batch that fails to insert is retried once before
+ * it is given up. Queue depth, drops, retries and batch writes are published
+ * as metrics, with answers lost to failed writes counted apart from those
+ * dropped at a full queue.
+ */
+@Slf4j
+@Service
+public class AnswerHistoryWriter {
+    private static final String INSERT_ANSWER_SQL =
+            "INSERT INTO answers (participant_id, quiz_id, question_id, selected_options, latency_ms, points, answered_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<PendingEntry> queue;
+    private final ExecutorService writer;
+
+    private final int batchSize;
+    // How long the writer waits for more answers before inserting a partial batch
+    private final long lingerMillis;
+    private final long flushTimeoutMillis;
+
+    private final Counter appended;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer batchWrites;
+
+    private volatile boolean running = true;
+
+    public AnswerHistoryWriter(JdbcTemplate jdbcTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${quiz.answers.queue-capacity:10000}") int queueCapacity,
+                               @Value("${quiz.answers.batch-size:500}") int batchSize,
+                               @Value("${quiz.answers.batch-linger-ms:20}") long lingerMillis,
+                               @Value("${quiz.answers.flush-timeout-ms:5000}") long flushTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("answer-writer-"));
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.flushTimeoutMillis = flushTimeoutMillis;
+
+        Gauge.builder("quiz.answers.queue.size", queue, BlockingQueue::size)
+                .description("Answers waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("quiz.answers.queue.remaining", queue, BlockingQueue::remainingCapacity)
+                .description("Free places in the answer queue")
+                .register(meterRegistry);
+        this.appended = meterRegistry.counter("quiz.answers.appended");
+        this.dropped = meterRegistry.counter("quiz.answers.dropped");
+        this.written = meterRegistry.counter("quiz.answers.written");
+        this.retried = meterRegistry.counter("quiz.answers.write.retried");
+        this.failed = meterRegistry.counter("quiz.answers.write.failed");
+        this.batchWrites = meterRegistry.timer("quiz.answers.batch.write");
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.execute(this::drainLoop);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.shutdownNow();
+        writer.awaitTermination(flushTimeoutMillis, TimeUnit.MILLISECONDS);
+
+        // Write whatever the writer thread left behind
+        List<PendingEntry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+    }
+
+    /**
+     * Queues one answer for the history without waiting. Returns false if it
+     * was dropped because the queue is full.
+     */
+    public boolean append(Long participantId, Long quizId, Long questionId, List<Integer> selectedOptionIndices,
+                          long latencyMillis, int points) {
+        AnswerEntry entry = new AnswerEntry(participantId, quizId, questionId, joinOptions(selectedOptionIndices),
+                latencyMillis, points, Instant.now());
+        PendingEntry pending = new PendingEntry(entry, null);
+        if (running && queue.offer(pending)) {
+            appended.increment();
+            return true;
+        }
+
+        dropped.increment();
+        log.warn("Answer history queue is full, dropped answer of participant {} to question {}",
+                participantId, questionId);
+        return false;
+    }
+
+    /**
+     * Blocks until every answer queued before this call has been written, or
+     * the flush timeout passes.
+     */
+    public void flush() {
+        if (!running) {
+            return;
+        }
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        try {
+            if (!queue.offer(new PendingEntry(null, barrier), flushTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Timed out queueing an answer history flush");
+                return;
+            }
+            barrier.get(flushTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Answer history flush did not complete: {}", e.getMessage());
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingEntry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                if (lingerMillis > 0 && queue.size() < batchSize - 1 && !batch.get(0).isBarrier()) {
+                    Thread.sleep(lingerMillis);
+                }
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                // Interrupted while lingering; write what was taken before stopping
+                write(batch);
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingEntry> batch) {
+        List<AnswerEntry> entries = new ArrayList<>(batch.size());
+        for (PendingEntry pending : batch) {
+            if (!pending.isBarrier()) {
+                entries.add(pending.entry());
+            }
+        }
+
+        if (!entries.isEmpty()) {
+            try {
+                batchWrites.record(() -> insert(entries));
+                written.increment(entries.size());
+            } catch (Exception e) {
+                log.warn("Failed to write {} answers to the history, retrying: {}", entries.size(), e.getMessage());
+                retried.increment(entries.size());
+                try {
+                    batchWrites.record(() -> insert(entries));
+                    written.increment(entries.size());
+                } catch (Exception retryFailure) {
+                    failed.increment(entries.size());
+                    log.error("Failed to write {} answers to the history, giving up: {}",
+                            entries.size(), retryFailure.getMessage(), retryFailure);
+                }
+            }
+        }
+
+        // Barriers complete once everything queued ahead of them has been tried
+        for (PendingEntry pending : batch) {
+            if (pending.isBarrier()) {
+                pending.barrier().complete(null);
+            }
+        }
+    }
+
+    private void insert(List<AnswerEntry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_ANSWER_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                AnswerEntry entry = entries.get(i);
+                ps.setLong(1, entry.participantId());
+                ps.setLong(2, entry.quizId());
+                ps.setLong(3, entry.questionId());
+                ps.setString(4, entry.selectedOptions());
+                ps.setLong(5, entry.latencyMillis());
+                ps.setInt(6, entry.points());
+                ps.setTimestamp(7, Timestamp.from(entry.answeredAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+    }
+
+    private static String joinOptions(List<Integer> selectedOptionIndices) {
+        if (selectedOptionIndices == null || selectedOptionIndices.isEmpty()) {
+            return "";
+        }
+        return selectedOptionIndices.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    private record AnswerEntry(Long participantId, Long quizId, Long questionId, String selectedOptions,
+                               long latencyMillis, int points, Instant answeredAt) {
+    }
+
+    // Either an answer to write or a flush barrier
+    private record PendingEntry(AnswerEntry entry, CompletableFuture<Void> barrier) {
+        boolean isBarrier() {
+            return barrier != null;
+        }
+    }
+}
@@ -2,109 +2,121 @@ package com.example.QuizRush.service;
 
 import com.example.QuizRush.dto.AnswerResult;
 import com.example.QuizRush.dto.AnswerSubmission;
-import com.example.QuizRush.dto.leaderboard.LeaderboardDTO;
-import com.example.QuizRush.entities.Participant;
-import com.example.QuizRush.entities.Question;
-import com.example.QuizRush.entities.Quiz;
 import com.example.QuizRush.entities.enums.QuizStatus;
 import com.example.QuizRush.exception.CustomException;
-import com.example.QuizRush.repository.ParticipantRepository;
-import com.example.QuizRush.repository.QuestionRepository;
-import com.example.QuizRush.repository.QuizRepository;
+import com.example.QuizRush.live.AnswerKey;
+import com.example.QuizRush.live.AnswerWindow;
+import com.example.QuizRush.live.LiveParticipant;
+import com.example.QuizRush.live.LiveRoom;
+import com.example.QuizRush.live.LiveRoomRegistry;
+import com.example.QuizRush.security.ParticipantAuthenticationToken;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 public class AnswerService {
-    private final ParticipantRepository participantRepository;
-    private final QuestionRepository questionRepository;
-    private final QuizRepository quizRepository;
     private final QuizTimerService quizTimerService;
+    private final LiveRoomRegistry liveRoomRegistry;
+    private final AnswerHistoryWriter answerHistoryWriter;
+    private final AnswerWindow answerWindow;
 
     public AnswerService(
-            ParticipantRepository participantRepository,
-            QuestionRepository questionRepository,
-            QuizRepository quizRepository,
-            QuizTimerService quizTimerService) {
-        this.participantRepository = participantRepository;
-        this.questionRepository = questionRepository;
-        this.quizRepository = quizRepository;
+            QuizTimerService quizTimerService,
+            LiveRoomRegistry liveRoomRegistry,
+            AnswerHistoryWriter answerHistoryWriter,
+            AnswerWindow answerWindow) {
         this.quizTimerService = quizTimerService;
+        this.liveRoomRegistry = liveRoomRegistry;
+        this.answerHistoryWriter = answerHistoryWriter;
+        this.answerWindow = answerWindow;
     }
 
-    @Transactional
     public AnswerResult processAnswer(Long quizId, AnswerSubmission answerSubmission, Authentication authentication) {
-        // 1. Extract participant information from the authentication token
-        String participantNickname = authentication.getName();
-
-        // 2. Find the authenticated participant
-        Participant participant = participantRepository.findByNickname(participantNickname)
-                .orElseThrow(() -> new CustomException("Authenticated participant not found"));
-
-        // 3. Validate that participant belongs to this quiz
-        if (!participant.getQuiz().getId().equals(quizId)) {
-            throw new CustomException("Participant does not belong to this quiz");
-        }
-
-        // 4. Override any participant ID in the submission with the authenticated one
-        Long authenticatedParticipantId = participant.getId();
-        answerSubmission.setParticipantId(authenticatedParticipantId);
-
-        Quiz quiz = quizRepository.findById(quizId)
-                .orElseThrow(() -> new CustomException("Quiz not found"));
-
-
-        if (!quiz.getStatus().equals(QuizStatus.STARTED))
-            throw new CustomException("Quiz is not started yet");
-
-        Question question = questionRepository.findById(answerSubmission.getQuestionId()).
-                orElseThrow(() -> new CustomException("Question not found"));
-
-        if (!quiz.getCurrentQuestion().getId().equals(answerSubmission.getQuestionId()))
-            throw new CustomException("This is not the current question");
-
-        // Calculate time spent on question using exact timing
-        String roomCode = quiz.getRoomCode();
-        int timeSpent = quizTimerService.calculateTimeSpentExact(roomCode);
+        LiveRoom room = liveRoomRegistry.find(quizId)
+                .orElseThrow(() -> new CustomException("Quiz is not started yet"));
+        return processAnswer(room, answerSubmission, authentication);
+    }
 
-        // Record answer time
-        quizTimerService.recordAnswerTime(roomCode, authenticatedParticipantId, timeSpent);
+    /**
+     * Entry point for answers sent over STOMP, where the room is addressed by its code.
+     */
+    public AnswerResult processAnswer(String roomCode, AnswerSubmission answerSubmission, Authentication authentication) {
+        LiveRoom room = liveRoomRegistry.findByRoomCode(roomCode)
+                .orElseThrow(() -> new CustomException("Quiz is not started yet"));
+        return processAnswer(room, answerSubmission, authentication);
+    }
 
-        List<Integer> correctOptionIndices = question.getCorrectOptionIndices();
-        List<Integer> submittedOptionIndices = answerSubmission.getSelectedOptionIndices();
+    private AnswerResult processAnswer(LiveRoom room, AnswerSubmission answerSubmission, Authentication authentication) {
+        // 1. Resolve the participant from the identity carried in their token
+        if (!(authentication instanceof ParticipantAuthenticationToken token))
+            throw new CustomException("Participant token required");
 
-        int correctlySelected = 0;
-        int incorrectlySelected = 0;
-        int totalCorrectOptions = correctOptionIndices.size();
+        // 2. Validate that participant belongs to this quiz
+        if (token.getQuizId() != null && !token.getQuizId().equals(room.getQuizId()))
+            throw new CustomException("Participant does not belong to this quiz");
 
-        for (Integer selectedIndex : submittedOptionIndices) {
-            if (correctOptionIndices.contains(selectedIndex))
-                correctlySelected++;
-            else
-                incorrectlySelected++;
-        }
+        // 3. Find the participant in the live roster; tokens issued before the
+        // identity claims existed only carry a nickname, which is unique per room
+        LiveParticipant liveParticipant = token.getParticipantId() != null
+                ? room.getParticipant(token.getParticipantId())
+                : room.getParticipantByNickname(token.getNickname());
+        if (liveParticipant == null)
+            throw new CustomException("Participant is not part of this quiz session");
 
-        boolean isFullyCorrect = (correctlySelected == totalCorrectOptions) && (incorrectlySelected == 0);
+        // 4. Override any participant ID in the submission with the authenticated one
+        answerSubmission.setParticipantId(liveParticipant.getId());
+
+        if (answerSubmission.getQuestionId() == null)
+            throw new CustomException("Question id is required");
+
+        // Also covers STOMP answers, which never pass through AnswerWindowFilter. A stale
+        // question id is rejected here too, so it counts as late on both transports
+        int questionIndex = room.getCurrentQuestionIndex();
+        if (!answerWindow.admit(room, answerSubmission.getQuestionId()))
+            throw new CustomException("This question is no longer accepting answers");
+        AnswerKey answerKey = questionIndex >= 0 && questionIndex < room.getQuestionCount()
+                ? room.getAnswerKey(questionIndex) : null;
+        // The question moved on between reading the index and admitting the answer
+        if (answerKey == null || !answerKey.getQuestionId().equals(answerSubmission.getQuestionId()))
+            throw new CustomException("This question is no longer accepting answers");
+
+        // Repeats are turned away before any scoring work; the claim itself is made on the mailbox
+        if (quizTimerService.hasAnswered(room.getRoomCode(), questionIndex, liveParticipant.getSlot()))
+            throw new CustomException("Answer already submitted for this question");
+
+        long selection = answerKey.encode(answerSubmission.getSelectedOptionIndices());
+        int correctlySelected = answerKey.correctlySelected(selection);
+        int totalCorrectOptions = answerKey.getCorrectCount();
+
+        boolean isFullyCorrect = answerKey.isFullyCorrect(selection);
         // Calculate points:
         // - Award partial points for correct selections if no incorrect options selected
         // - Zero points if any incorrect options selected
-        int pointsAwarded = 0;
-        if (incorrectlySelected == 0) {
-            double fraction = (double) correctlySelected / totalCorrectOptions;
-            pointsAwarded = (int) Math.round(question.getPoints() * fraction);
-        }
-
-        int currentScore = participant.getScore();
-        int newScore = currentScore + pointsAwarded;
-        participant.setScore(newScore);
-        participantRepository.save(participant);
-        participantRepository.flush(); // Force the changes to be written to DB
+        int pointsAwarded = answerKey.pointsFor(selection);
+
+        // Timing, score and history are applied on the room's mailbox, ordered with the room's other
+        // mutations, so an accepted answer is always queued ahead of the end-of-quiz history flush
+        int newScore = room.getMailbox().call(() -> {
+            if (room.getStatus() != QuizStatus.STARTED || room.getCurrentQuestionIndex() != questionIndex)
+                throw new CustomException("This question is no longer accepting answers");
+            // Claimed only once the answer is sure to be applied, so a rejected one can be sent again
+            if (!quizTimerService.markAnswered(room.getRoomCode(), questionIndex, liveParticipant.getSlot()))
+                throw new CustomException("Answer already submitted for this question");
+
+            // Record answer time, measured exactly from the question start
+            int totalTimeSpent = quizTimerService.recordAnswer(room.getRoomCode(), liveParticipant.getSlot());
+            long latencyMillis = quizTimerService.getElapsedMillis(room.getRoomCode());
+
+            // The live score is authoritative; the delta is written behind when the question ends
+            int score = room.awardPoints(liveParticipant, pointsAwarded, totalTimeSpent);
+
+            // Kept for post-quiz review; queued without waiting, the batches are written off this thread
+            answerHistoryWriter.append(liveParticipant.getId(), room.getQuizId(), answerKey.getQuestionId(),
+                    answerSubmission.getSelectedOptionIndices(), latencyMillis, pointsAwarded);
+            return score;
+        });
 
         // Prepare response message
         String message;
@@ -120,9 +132,9 @@ public class AnswerService {
         AnswerResult answerResult = new AnswerResult(
                 isFullyCorrect,
                 pointsAwarded,
-                participant.getScore(), // Return total score
+                newScore, // Return total score
                 message,
-                correctOptionIndices
+                answerKey.getCorrectOptionIndices()
         );
         return answerResult;
     }
@@ -1,13 +1,23 @@
 package com.example.QuizRush.service;
 
+import com.example.QuizRush.security.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
@@ -18,6 +28,32 @@ public class JwtService {
     @Value("${jwt.expirationTime}")
     private long expirationTime;
 
+    // Verified tokens keyed by a digest of the token, dropped once the token expires
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtService(@Value("${jwt.verified-cache.max-size:100000}") long verifiedCacheSize) {
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        long remainingMillis = token.getExpiresAtMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     public String generateToken(String username,String role,Long userId) {
         JwtBuilder builder = Jwts.builder()
                 .setSubject(username)
@@ -33,6 +69,56 @@ public class JwtService {
         return builder.signWith(SignatureAlgorithm.HS256, secretkey)
                 .compact();
     }
+
+    /**
+     * Participant tokens carry the participant's identity, so requests can be
+     * attributed without looking the participant up.
+     */
+    public String generateParticipantToken(String nickname, Long participantId, Long quizId, int slot) {
+        return Jwts.builder()
+                .setSubject(nickname)
+                .claim("role", "PARTICIPANT")
+                .claim("participantId", participantId)
+                .claim("quizId", quizId)
+                .claim("slot", slot)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
+                .signWith(SignatureAlgorithm.HS256, secretkey)
+                .compact();
+    }
+
+    /**
+     * Verifies the token's signature and expiry and returns its claims.
+     * A token is parsed once; later calls are served from the cache until it
+     * expires.
+     *
+     * @throws JwtException if the token is malformed, forged or expired
+     */
+    public VerifiedToken verify(String token) {
+        String key = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            return cached;
+        }
+
+        // parseClaimsJws checks the signature and the expiration in one pass
+        Claims claims = extractAllClaims(token);
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            throw new JwtException("Token has no expiration");
+        }
+        VerifiedToken verified = new VerifiedToken(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.get("userId", Long.class),
+                claims.get("participantId", Long.class),
+                claims.get("quizId", Long.class),
+                claims.get("slot", Integer.class),
+                expiration.getTime());
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
     public Boolean validateToken(String token, String username) {
         final String extractedUsername = extractUsername(token);
         return (extractedUsername.equals(username) && !isTokenExpired(token));
@@ -65,4 +151,14 @@ public class JwtService {
     private Boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
+
+    // The cache never holds raw tokens
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
@@ -2,90 +2,72 @@ package com.example.QuizRush.service;
 
 import com.example.QuizRush.dto.leaderboard.LeaderBoardEntryDTO;
 import com.example.QuizRush.dto.leaderboard.LeaderboardDTO;
-import com.example.QuizRush.entities.Participant;
-import com.example.QuizRush.entities.Quiz;
-import com.example.QuizRush.repository.ParticipantRepository;
-import com.example.QuizRush.repository.QuizRepository;
+import com.example.QuizRush.dto.leaderboard.ParticipantRankDTO;
+import com.example.QuizRush.live.LiveParticipant;
+import com.example.QuizRush.live.LiveRoom;
+import com.example.QuizRush.live.RankedLeaderboard;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class LeaderboardService {
-    private final QuizTimerService quizTimerService;
-    private final QuizRepository quizRepository;
-    private final ParticipantRepository participantRepository;
 
-    public LeaderboardService(QuizTimerService quizTimerService,
-                              QuizRepository quizRepository,
-                              ParticipantRepository participantRepository) {
-        this.quizTimerService = quizTimerService;
-        this.quizRepository = quizRepository;
-        this.participantRepository = participantRepository;
-    }
-
-    @Transactional(isolation = Isolation.READ_COMMITTED)
-    public LeaderboardDTO generateLeaderboard(Quiz quizParam, boolean isFinal) {
+    // Used when the quiz does not set its own values
+    @Value("${quiz.leaderboard.top-k:10}")
+    private int defaultTopK;
 
-        // Force a refresh of the quiz and participants to get the latest data
-        Quiz quiz = quizRepository.findById(quizParam.getId())
-                .orElseThrow(() -> new RuntimeException("Quiz not found"));
+    @Value("${quiz.leaderboard.full-broadcast-limit:50}")
+    private int defaultFullBroadcastLimit;
 
-        // Get participants directly from repository to ensure fresh data
-        String roomCode = quiz.getRoomCode();
-        List<Participant> participants = participantRepository.findByQuizId(quiz.getId());
-
-        if (participants == null || participants.isEmpty()) {
-            return new LeaderboardDTO(List.of(), isFinal);
+    /**
+     * Builds the leaderboard for the room topic from the room's ranked index,
+     * which is kept up to date as answers are scored. Large rooms only get the
+     * top K entries; see {@link #isTopKMode(LiveRoom)}.
+     */
+    public LeaderboardDTO generateLeaderboard(LiveRoom room, boolean isFinal) {
+        RankedLeaderboard ranked = room.getLeaderboard();
+        int totalParticipants = ranked.size();
+        if(room.isLastQuestion()){
+            isFinal = true;
         }
 
-        List<LeaderBoardEntryDTO> entries = participants.stream()
-                .map(participant -> createEntry(roomCode, participant))
-                .sorted(createLeaderboardComparator())
-                .collect(Collectors.toList());
-
-        // Assign ranks (handle ties by giving same rank)
-        int rank = 1;
-        for (int i = 0; i < entries.size(); i++) {
-            if (i > 0 && shouldHaveSameRank(entries.get(i), entries.get(i-1))) {
-                entries.get(i).setRank(entries.get(i-1).getRank());
-            } else {
-                entries.get(i).setRank(rank);
-                rank++;
-            }
-        }
-        if(quiz.getCurrentQuestionIndex() == quiz.getQuestions().size() - 1){
-            isFinal = true;
+        if (totalParticipants == 0) {
+            return new LeaderboardDTO(List.of(), isFinal, 0);
         }
 
-        return new LeaderboardDTO(entries, isFinal);
+        List<LeaderBoardEntryDTO> entries = isTopKMode(room)
+                ? ranked.top(topK(room))
+                : ranked.all();
+        return new LeaderboardDTO(entries, isFinal, totalParticipants);
     }
 
-    private LeaderBoardEntryDTO createEntry(String roomCode, Participant participant) {
-        int totalTime = quizTimerService.getTotalTime(roomCode, participant.getId());
-
-        return new LeaderBoardEntryDTO(
-                participant.getId(),
-                participant.getNickname(),
-                participant.getScore(),
-                totalTime,
-                0  // rank will be set later
+    /**
+     * Builds a participant's own rank, score and neighbours for their user queue.
+     */
+    public ParticipantRankDTO generateParticipantRank(LiveRoom room, LiveParticipant participant, boolean isFinal) {
+        RankedLeaderboard ranked = room.getLeaderboard();
+        return new ParticipantRankDTO(
+                ranked.entryOf(participant.getId()),
+                ranked.neighboursOf(participant.getId()),
+                ranked.size(),
+                isFinal
         );
     }
 
-    private Comparator<LeaderBoardEntryDTO> createLeaderboardComparator() {
-        return Comparator
-                .comparing(LeaderBoardEntryDTO::getScore).reversed()  // Higher score first
-                .thenComparing(LeaderBoardEntryDTO::getTotalTimeSpent);  // Lower time first
+    /**
+     * Rooms larger than the full-broadcast limit receive only the top K on the
+     * room topic, plus a personal rank per participant.
+     */
+    public boolean isTopKMode(LiveRoom room) {
+        Integer limit = room.getLeaderboardFullBroadcastLimit();
+        return room.getLeaderboard().size() > (limit != null ? limit : defaultFullBroadcastLimit);
     }
 
-    private boolean shouldHaveSameRank(LeaderBoardEntryDTO current, LeaderBoardEntryDTO previous) {
-        return current.getScore().equals(previous.getScore())
-                && current.getTotalTimeSpent().equals(previous.getTotalTimeSpent());
+    public int topK(LiveRoom room) {
+        Integer topK = room.getLeaderboardTopK();
+        return topK != null && topK > 0 ? topK : defaultTopK;
     }
-}
\ No newline at end of file
+}
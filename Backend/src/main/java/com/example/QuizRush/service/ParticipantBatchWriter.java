@@ -0,0 +1,165 @@
+package com.example.QuizRush.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Inserts newly admitted participants.
+ *
+ * Joins that arrive close together are coalesced into a single JDBC batch by
+ * one writer thread. Tokens embed the generated id, so they are created and
+ * stored in a second batch within the same transaction. Each caller gets a
+ * future that completes with its participant id and token.
+ */
+@Slf4j
+@Service
+public class ParticipantBatchWriter {
+    private static final String INSERT_PARTICIPANT_SQL =
+            "INSERT INTO participants (nickname, quiz_id, slot, score, version) VALUES (?, ?, ?, 0, 0)";
+    private static final String SET_TOKEN_SQL = "UPDATE participants SET token = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JwtService jwtService;
+    private final BlockingQueue<PendingInsert> queue;
+    private final ExecutorService writer;
+
+    @Value("${quiz.joins.batch-size:100}")
+    private int batchSize;
+
+    // How long the writer waits for more joins before inserting a partial batch
+    @Value("${quiz.joins.batch-linger-ms:5}")
+    private long lingerMillis;
+
+    private volatile boolean running = true;
+
+    public ParticipantBatchWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  JwtService jwtService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jwtService = jwtService;
+        this.queue = new LinkedBlockingQueue<>();
+        this.writer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("participant-writer-"));
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.execute(this::drainLoop);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        writer.shutdownNow();
+    }
+
+    public CompletableFuture<InsertedParticipant> insert(String nickname, Long quizId, int slot) {
+        PendingInsert pending = new PendingInsert(nickname, quizId, slot, new CompletableFuture<>());
+        if (!running) {
+            pending.result().completeExceptionally(new IllegalStateException("Participant writer is stopped"));
+            return pending.result();
+        }
+        queue.add(pending);
+        return pending.result();
+    }
+
+    private void drainLoop() {
+        List<PendingInsert> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                if (lingerMillis > 0 && queue.size() < batchSize - 1) {
+                    Thread.sleep(lingerMillis);
+                }
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+
+        // Fail whatever is left so no caller waits forever
+        PendingInsert pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new IllegalStateException("Participant writer is stopped"));
+        }
+    }
+
+    private void write(List<PendingInsert> batch) {
+        try {
+            List<InsertedParticipant> inserted = transactionTemplate.execute(status -> insertAll(batch));
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(inserted.get(i));
+            }
+        } catch (Exception e) {
+            log.error("Failed to insert {} participants: {}", batch.size(), e.getMessage(), e);
+            for (PendingInsert pending : batch) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private List<InsertedParticipant> insertAll(List<PendingInsert> batch) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_PARTICIPANT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PendingInsert pending = batch.get(i);
+                        ps.setString(1, pending.nickname());
+                        ps.setLong(2, pending.quizId());
+                        ps.setInt(3, pending.slot());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<InsertedParticipant> inserted = new ArrayList<>(batch.size());
+        List<Object[]> tokenArgs = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingInsert pending = batch.get(i);
+            Long id = ((Number) keys.get(i).get("id")).longValue();
+            String token = jwtService.generateParticipantToken(pending.nickname(), id, pending.quizId(), pending.slot());
+            inserted.add(new InsertedParticipant(id, token));
+            tokenArgs.add(new Object[]{token, id});
+        }
+        jdbcTemplate.batchUpdate(SET_TOKEN_SQL, tokenArgs);
+        return inserted;
+    }
+
+    public record InsertedParticipant(Long id, String token) {
+    }
+
+    private record PendingInsert(String nickname, Long quizId, int slot, CompletableFuture<InsertedParticipant> result) {
+    }
+}
@@ -7,73 +7,101 @@ import com.example.QuizRush.entities.Participant;
 import com.example.QuizRush.entities.Quiz;
 import com.example.QuizRush.entities.enums.QuizStatus;
 import com.example.QuizRush.exception.CustomException;
+import com.example.QuizRush.live.JoinAdmission;
+import com.example.QuizRush.live.JoinAdmissionRegistry;
 import com.example.QuizRush.mapper.ParticipantMapper;
 import com.example.QuizRush.repository.ParticipantRepository;
 import com.example.QuizRush.repository.QuizRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class ParticipantService {
     private final QuizRepository quizRepository;
     private final ParticipantRepository participantRepository;
-    private final JwtService jwtService;
-    private final WebSocketService webSocketService;
+    private final RosterAggregator rosterAggregator;
     private final ParticipantMapper participantMapper;
+    private final JoinAdmissionRegistry joinAdmissionRegistry;
+    private final ParticipantBatchWriter participantBatchWriter;
 
-    public ParticipantService(QuizRepository quizRepository, ParticipantRepository participantRepository, JwtService jwtService, WebSocketService webSocketService, ParticipantMapper participantMapper) {
+    @Value("${quiz.joins.insert-timeout-ms:5000}")
+    private long insertTimeoutMillis;
+
+    public ParticipantService(QuizRepository quizRepository, ParticipantRepository participantRepository, RosterAggregator rosterAggregator, ParticipantMapper participantMapper,
+                              JoinAdmissionRegistry joinAdmissionRegistry, ParticipantBatchWriter participantBatchWriter) {
         this.quizRepository = quizRepository;
         this.participantRepository = participantRepository;
-        this.jwtService = jwtService;
-        this.webSocketService = webSocketService;
+        this.rosterAggregator = rosterAggregator;
         this.participantMapper = participantMapper;
+        this.joinAdmissionRegistry = joinAdmissionRegistry;
+        this.participantBatchWriter = participantBatchWriter;
     }
 
     public ParticipantJoinResponse joinQuiz(ParticipantLoginRequest participantLoginRequest){
 
-        //check if quiz exists
-        Quiz quiz = quizRepository.findByRoomCode(participantLoginRequest.getQuizRoomCode())
-                .orElseThrow(() -> new CustomException("Invalid Room code"));
-        //check if nickname is taken
-        Optional<Participant> existingParticipant = participantRepository.findByNicknameAndQuiz(participantLoginRequest.getNickname(),quiz);
-        if(existingParticipant.isPresent()){
-            throw new CustomException("Nickname is already taken");
-        }
-        if(!quiz.getStatus().equals(QuizStatus.WAITING)){
-            throw new CustomException("Quiz is not open for joining");
-        }
-        //check if maximum participant limit is fulfilled
-        if(quiz.getParticipants().size() >= quiz.getMaxParticipants()){
-            throw new CustomException("Quiz room is full");
+        String roomCode = participantLoginRequest.getQuizRoomCode();
+        String nickname = participantLoginRequest.getNickname();
+
+        //check if quiz exists and is open for joining
+        JoinAdmission admission = joinAdmissionRegistry.find(roomCode)
+                .orElseThrow(() -> new CustomException("Quiz is not open for joining"));
+        //reserve the nickname and a place in the room, atomically
+        int slot = admission.admit(nickname);
+
+        //the writer generates the token once the participant has an id
+        CompletableFuture<ParticipantBatchWriter.InsertedParticipant> insert =
+                participantBatchWriter.insert(nickname, admission.getQuizId(), slot);
+        // A start waits for this before reading the roster
+        insert.whenComplete((inserted, error) -> admission.settled());
+        ParticipantBatchWriter.InsertedParticipant inserted;
+        try {
+            inserted = insert.get(insertTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The insert definitely failed, so the nickname is free again
+            admission.release(nickname);
+            throw new CustomException("Failed to join quiz: " + e.getCause().getMessage());
+        } catch (InterruptedException | TimeoutException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // The insert may still commit; the nickname stays taken until it is known to have failed
+            settleLate(admission, roomCode, nickname, insert);
+            throw new CustomException("Join is taking too long, please try again");
         }
-        //creating a participant
-        Participant participant = new Participant(participantLoginRequest.getNickname(), quiz);
-
-        //genrating token for participant
-        String token = jwtService.generateToken(participant.getNickname(), "PARTICIPANT",null);
-        participant.setToken(token);
-
-        participantRepository.save(participant);
 
-        // Add participant to quiz's participants collection
-        quiz.addParticipant(participant);
-
-        ParticipantDTO participantDTO = participantMapper.toDTO(participant);
-        webSocketService.notifyParticipantJoined(quiz.getRoomCode(),participantDTO);
-        
-        //quiz needs to be saved coz of bidirectional mapping and saving quiz will also save participants bcoz of cascade type ALL
-        quizRepository.save(quiz);
+        Long participantId = inserted.id();
+        ParticipantDTO participantDTO = new ParticipantDTO(participantId, nickname, 0, roomCode);
+        rosterAggregator.participantJoined(roomCode,participantDTO);
 
         ParticipantJoinResponse participantJoinResponse = new ParticipantJoinResponse(
-                token,
-                participant.getId(),
-                quiz.getId()
+                inserted.token(),
+                participantId,
+                admission.getQuizId()
         );
         return participantJoinResponse;
     }
 
+    /**
+     * Follows an insert the caller stopped waiting for: a failure frees the
+     * nickname, a late success still shows the participant on the roster.
+     */
+    private void settleLate(JoinAdmission admission, String roomCode, String nickname,
+                            CompletableFuture<ParticipantBatchWriter.InsertedParticipant> insert) {
+        insert.whenComplete((inserted, error) -> {
+            if (error != null) {
+                admission.release(nickname);
+            } else {
+                rosterAggregator.participantJoined(roomCode, new ParticipantDTO(inserted.id(), nickname, 0, roomCode));
+            }
+        });
+    }
+
     public List<Participant> getParticipants(Long quizId){
         Quiz quiz = quizRepository.findById(quizId)
                 .orElseThrow(() -> new CustomException("Quiz not found"));
@@ -96,8 +124,9 @@ public class ParticipantService {
         quiz.removeParticipant(participant);
         participantRepository.delete(participant);
         quizRepository.save(quiz);
+        joinAdmissionRegistry.peek(roomCode).ifPresent(admission -> admission.release(nickname));
 
-        webSocketService.notifyParticipantLeft(roomCode, participantDTO);
+        rosterAggregator.participantLeft(roomCode, participantDTO);
 
     }
 }
@@ -3,6 +3,8 @@ package com.example.QuizRush.service;
 import com.example.QuizRush.entities.Question;
 import com.example.QuizRush.entities.Quiz;
 import com.example.QuizRush.exception.CustomException;
+import com.example.QuizRush.live.AnswerKey;
+import com.example.QuizRush.live.QuizPlanCache;
 import com.example.QuizRush.repository.QuestionRepository;
 import com.example.QuizRush.repository.QuizRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,19 +17,25 @@ import java.util.Optional;
 public class QuestionService {
     private final QuestionRepository questionRepository;
     private final QuizRepository quizRepository;
+    private final QuizPlanCache quizPlanCache;
 
-    public QuestionService(QuestionRepository questionRepository, QuizRepository quizRepository) {
+    public QuestionService(QuestionRepository questionRepository, QuizRepository quizRepository,
+                           QuizPlanCache quizPlanCache) {
         this.questionRepository = questionRepository;
         this.quizRepository = quizRepository;
+        this.quizPlanCache = quizPlanCache;
     }
 
     public Question createQuestion(Question question, Long quizId) {
         try {
             Quiz quiz = quizRepository.findById(quizId)
                     .orElseThrow(() -> new CustomException("Quiz not found"));
+            validateOptions(question);
             //setting quizId in question table
             question.setQuiz(quiz);
-            return questionRepository.save(question);
+            Question saved = questionRepository.save(question);
+            quizPlanCache.invalidate(quizId);
+            return saved;
         } catch (Exception e) {
             throw new CustomException("Failed to create question: " + e.getMessage());
         }
@@ -59,8 +67,11 @@ public class QuestionService {
             if (!existingQuestion.getQuiz().getId().equals(quizId)) {
                 throw new CustomException("Unauthorized to update this question");
             }
+            validateOptions(question);
             question.setQuiz(existingQuestion.getQuiz());
-            return questionRepository.save(question);
+            Question saved = questionRepository.save(question);
+            quizPlanCache.invalidate(quizId);
+            return saved;
 
         } catch (Exception e) {
             throw new CustomException("Failed to update question: " + e.getMessage());
@@ -77,9 +88,22 @@ public class QuestionService {
 
 
             questionRepository.delete(existingQuestion);
+            quizPlanCache.invalidate(quizId);
         } catch (Exception e) {
             throw new CustomException("Failed to delete question: " + e.getMessage());
         }
     }
-}
 
+    // Answer keys are compiled into a long bitmask when the quiz starts
+    private void validateOptions(Question question) {
+        int optionCount = question.getOptions() == null ? 0 : question.getOptions().size();
+        if (optionCount > AnswerKey.MAX_OPTIONS)
+            throw new CustomException("A question can have at most " + AnswerKey.MAX_OPTIONS + " options");
+        if (question.getCorrectOptionIndices() != null) {
+            for (Integer index : question.getCorrectOptionIndices()) {
+                if (index == null || index < 0 || index >= optionCount)
+                    throw new CustomException("Correct option index out of range: " + index);
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.example.QuizRush.entities.Question;
 import com.example.QuizRush.entities.Quiz;
 import com.example.QuizRush.entities.User;
 import com.example.QuizRush.exception.CustomException;
+import com.example.QuizRush.live.QuizPlanCache;
 import com.example.QuizRush.repository.QuestionRepository;
 import com.example.QuizRush.repository.QuizRepository;
 import com.example.QuizRush.repository.UserRepository;
@@ -17,16 +18,19 @@ public class QuizService {
     private final QuizRepository quizRepository;
     private final UserRepository userRepository;
     private final QuestionRepository questionRepository;
+    private final QuizPlanCache quizPlanCache;
 
     public String generateQuizCode(){
         Random random = new Random();
         return(String.valueOf(random.nextInt(900000) + 100000));
     }
 
-    public QuizService(QuizRepository quizRepository,UserRepository userRepository, QuestionRepository questionRepository) {
+    public QuizService(QuizRepository quizRepository,UserRepository userRepository, QuestionRepository questionRepository,
+                       QuizPlanCache quizPlanCache) {
         this.quizRepository = quizRepository;
         this.userRepository = userRepository;
         this.questionRepository = questionRepository;
+        this.quizPlanCache = quizPlanCache;
     }
 
     public Quiz createQuiz(Quiz quiz, Long hostId){
@@ -66,7 +70,9 @@ public class QuizService {
                     .orElseThrow(() -> new CustomException("Quiz not found"));
             if(!existingQuiz.getHost().getId().equals(hostId))
                 throw new CustomException("Unauthorized to update this quiz");
-            return quizRepository.save(quiz);
+            Quiz saved = quizRepository.save(quiz);
+            quizPlanCache.invalidate(quiz.getId());
+            return saved;
         } catch (Exception e) {
             throw new CustomException("Failed to update quiz: " + e.getMessage());
         }
@@ -80,6 +86,7 @@ public class QuizService {
                 throw new CustomException("Unauthorized to delete this quiz");
 
             quizRepository.delete(existingQuiz);
+            quizPlanCache.invalidate(id);
         } catch (Exception e) {
             throw new CustomException("Failed to delete quiz: " + e.getMessage());
         }
@@ -1,15 +1,22 @@
 package com.example.QuizRush.service;
 
 import com.example.QuizRush.dto.leaderboard.LeaderboardDTO;
-import com.example.QuizRush.dto.websocket.QuestionDTO;
 import com.example.QuizRush.entities.Participant;
 import com.example.QuizRush.entities.Question;
 import com.example.QuizRush.entities.Quiz;
 import com.example.QuizRush.entities.enums.QuizStatus;
 import com.example.QuizRush.exception.CustomException;
-import com.example.QuizRush.mapper.QuestionMapper;
+import com.example.QuizRush.live.JoinAdmission;
+import com.example.QuizRush.live.JoinAdmissionRegistry;
+import com.example.QuizRush.live.LiveParticipant;
+import com.example.QuizRush.live.LiveRoom;
+import com.example.QuizRush.live.LiveRoomRegistry;
+import com.example.QuizRush.live.LiveRoomRehydratedEvent;
 import com.example.QuizRush.repository.ParticipantRepository;
 import com.example.QuizRush.repository.QuizRepository;
+import com.example.QuizRush.security.ParticipantAuthenticationToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,22 +27,38 @@ public class QuizSessionService {
     private final QuizRepository quizRepository;
     private final ParticipantRepository participantRepository;
     private final WebSocketService webSocketService;
-    private final QuestionMapper questionMapper;
     private final QuizTimerService quizTimerService;
     private final LeaderboardService leaderboardService;
+    private final LiveRoomRegistry liveRoomRegistry;
+    private final ScoreFlushService scoreFlushService;
+    private final JoinAdmissionRegistry joinAdmissionRegistry;
+    private final RoomSnapshotService roomSnapshotService;
+    private final AnswerHistoryWriter answerHistoryWriter;
+
+    // How long starting a quiz waits for joins that are admitted but not yet inserted
+    @Value("${quiz.joins.start-drain-timeout-ms:10000}")
+    private long startDrainTimeoutMillis;
 
     public QuizSessionService(QuizRepository quizRepository,
                               ParticipantRepository participantRepository,
                               WebSocketService webSocketService,
-                              QuestionMapper questionMapper,
                               QuizTimerService quizTimerService,
-                              LeaderboardService leaderboardService) {
+                              LeaderboardService leaderboardService,
+                              LiveRoomRegistry liveRoomRegistry,
+                              ScoreFlushService scoreFlushService,
+                              JoinAdmissionRegistry joinAdmissionRegistry,
+                              RoomSnapshotService roomSnapshotService,
+                              AnswerHistoryWriter answerHistoryWriter) {
         this.quizRepository = quizRepository;
         this.participantRepository = participantRepository;
         this.webSocketService = webSocketService;
-        this.questionMapper = questionMapper;
         this.quizTimerService = quizTimerService;
         this.leaderboardService = leaderboardService;
+        this.liveRoomRegistry = liveRoomRegistry;
+        this.scoreFlushService = scoreFlushService;
+        this.joinAdmissionRegistry = joinAdmissionRegistry;
+        this.roomSnapshotService = roomSnapshotService;
+        this.answerHistoryWriter = answerHistoryWriter;
     }
 
     public Quiz openQuiz(Long quizId, Long hostId){
@@ -47,6 +70,8 @@ public class QuizSessionService {
             throw new CustomException("Quiz is not in CREATED state.");
         quiz.setStatus(QuizStatus.WAITING);
         quizRepository.save(quiz);
+        // Joins are admitted in memory from now until the quiz starts
+        joinAdmissionRegistry.open(quiz);
         return(quiz);
     }
 
@@ -57,48 +82,100 @@ public class QuizSessionService {
         if(!quiz.getHost().getId().equals(hostId))
             throw new CustomException("Unauthorized to start this quiz");
 
-        if(!quiz.canStart())
+        if(quiz.getStatus() != QuizStatus.WAITING)
             throw new CustomException("Quiz cannot be started: ensure it has participants and questions");
 
+        // Stop new joins, then let the ones already admitted reach the database
+        JoinAdmission admission = joinAdmissionRegistry.close(quiz);
+        if (!admission.awaitSettled(startDrainTimeoutMillis)) {
+            reopenAdmission(admission);
+            throw new CustomException("Participants are still joining, try starting the quiz again");
+        }
+        // The quiz's own participant list may predate those inserts
+        List<Participant> roster = participantRepository.findByQuizId(quiz.getId());
+        if(!quiz.canStart(roster)) {
+            reopenAdmission(admission);
+            throw new CustomException("Quiz cannot be started: ensure it has participants and questions");
+        }
+
         quiz.setStatus(QuizStatus.STARTED);
         quiz.setCurrentQuestionIndex(0);
         quiz = quizRepository.save(quiz);
-        webSocketService.broadcastQuizStarted(quiz.getRoomCode());
+        joinAdmissionRegistry.remove(quiz.getRoomCode());
 
-        // Get and broadcast the first question
-        Question currentQuestion = quiz.getCurrentQuestion();
-        if (currentQuestion == null) {
-            throw new CustomException("No questions available");
-        }
+        // From here on the live room serves all reads for this quiz
+        LiveRoom room = liveRoomRegistry.open(quiz, roster);
+        room.getMailbox().run(() -> {
+            webSocketService.broadcastQuizStarted(room.getRoomCode());
 
-        QuestionDTO questionDTO = questionMapper.toDTO(currentQuestion);
-        webSocketService.broadcastNewQuestion(quiz.getRoomCode(), questionDTO);
-        quizTimerService.startQuestionTimer(quiz.getRoomCode(), currentQuestion.getDuration());
+            // Get and broadcast the first question
+            Question currentQuestion = room.getCurrentQuestion();
+            if (currentQuestion == null) {
+                throw new CustomException("No questions available");
+            }
+
+            long deadline = quizTimerService.startQuestionTimer(room.getRoomCode(),
+                    room.getCurrentQuestionIndex(), room.getSlotCount(), currentQuestion.getDuration());
+            room.setCurrentDeadline(deadline);
+            roomSnapshotService.refresh(room);
+            webSocketService.broadcastNewQuestion(room.getRoomCode(), room.getPlan(), room.getCurrentQuestionIndex(), deadline);
+        });
 
         return quiz;
     }
 
 
+    private void reopenAdmission(JoinAdmission admission) {
+        joinAdmissionRegistry.reopen(admission);
+    }
+
     public Quiz endQuiz(Long quizId, Long hostId){
-        Quiz quiz = quizRepository.findById(quizId)
-                .orElseThrow(() -> new CustomException("Quiz not found"));
-        
-        if(!quiz.getHost().getId().equals(hostId))
+        LiveRoom room = requireLiveRoom(quizId);
+
+        if(!room.isHost(hostId))
             throw new CustomException("Unauthorized to end this quiz");
-        
-        if(quiz.getStatus() != QuizStatus.STARTED)
+
+        return room.getMailbox().call(() -> finishQuiz(room));
+    }
+
+    private Quiz finishQuiz(LiveRoom room) {
+        if(room.getStatus() != QuizStatus.STARTED)
             throw new CustomException("Quiz is not in progress");
-        
-        quiz.setStatus(QuizStatus.FINISHED);
-        webSocketService.broadcastQuizEnded(quiz.getRoomCode());
 
-        // Generate final leaderboard
-        LeaderboardDTO finalLeaderboard = leaderboardService.generateLeaderboard(quiz, true);
-        webSocketService.broadcastLeaderboardUpdate(quiz.getRoomCode(), finalLeaderboard);
+        endRoom(room);
+        return quizRepository.findById(room.getQuizId())
+                .orElseThrow(() -> new CustomException("Quiz not found"));
+    }
 
-        quizTimerService.cleanupRoom(quiz.getRoomCode());
-        return quizRepository.save(quiz);
+    /**
+     * Ends a live room however the quiz ended: the countdown is stopped,
+     * everyone is told the quiz ended and gets the final leaderboard, scores
+     * and answer history are flushed, and the room is dropped. Must run on
+     * the room's mailbox; a room that already ended is left alone.
+     */
+    private void endRoom(LiveRoom room) {
+        if (room.getStatus() == QuizStatus.FINISHED) {
+            return;
+        }
+        room.setStatus(QuizStatus.FINISHED);
+        // No question timeout may fire for a room that is gone
+        quizTimerService.cleanupRoom(room.getRoomCode());
+        try {
+            webSocketService.broadcastQuizEnded(room.getRoomCode());
+            scoreFlushService.flush(room);
+            // The answer history is complete once the quiz has ended
+            answerHistoryWriter.flush();
+
+            // Generate final leaderboard
+            publishLeaderboard(room, true);
+
+            quizRepository.updateCurrentQuestionIndex(room.getQuizId(), room.getCurrentQuestionIndex());
+            quizRepository.updateStatus(room.getQuizId(), QuizStatus.FINISHED);
+        } finally {
+            liveRoomRegistry.remove(room);
+        }
     }
+
     @Transactional
     public void removeAllParticipants(Long quizId, Long hostId) {
         Quiz quiz = quizRepository.findById(quizId)
@@ -117,55 +194,60 @@ public class QuizSessionService {
 
         participantRepository.deleteAll(participants);
         quizRepository.save(quiz);
+        liveRoomRegistry.remove(quizId);
+        joinAdmissionRegistry.remove(quiz.getRoomCode());
     }
 
 
     public Question nextQuestion(Long quizId, Long hostId){
-        Quiz quiz = quizRepository.findById(quizId)
-                .orElseThrow(() -> new CustomException("Quiz not found"));
+        LiveRoom room = requireLiveRoom(quizId);
 
-        if(!quiz.getHost().getId().equals(hostId))
+        if(!room.isHost(hostId))
             throw new CustomException("Unauthorized to modify this quiz");
 
-        if(quiz.getStatus() != QuizStatus.STARTED)
+        return room.getMailbox().call(() -> advance(room));
+    }
+
+    private Question advance(LiveRoom room) {
+        Long quizId = room.getQuizId();
+        if(room.getStatus() != QuizStatus.STARTED)
             throw new CustomException("Quiz is not in progress");
 
         // Try to advance to the next question
-        if (!quiz.advanceToNextQuestion()) {
+        if (!room.advanceToNextQuestion()) {
             // No more questions, end the quiz
-            quiz.setStatus(QuizStatus.FINISHED);
-            quizRepository.save(quiz);
+            endRoom(room);
             throw new CustomException("No more questions, quiz has ended");
         }
-        
-        quizRepository.save(quiz);
-        Question currentQuestion = quiz.getCurrentQuestion();
+
+        quizRepository.updateCurrentQuestionIndex(quizId, room.getCurrentQuestionIndex());
+        Question currentQuestion = room.getCurrentQuestion();
 
         if (currentQuestion == null) {
             throw new CustomException("No current question available");
         }
 
-        // Handle sending out each question consistently
-        QuestionDTO questionDTO = questionMapper.toDTO(currentQuestion);
-        String roomCode = currentQuestion.getQuiz().getRoomCode();
-        //broadcasting next question
-        webSocketService.broadcastNewQuestion(roomCode,questionDTO);
+        String roomCode = room.getRoomCode();
         // Start the timer for this question
-        quizTimerService.startQuestionTimer(roomCode, currentQuestion.getDuration());
+        long deadline = quizTimerService.startQuestionTimer(roomCode,
+                room.getCurrentQuestionIndex(), room.getSlotCount(), currentQuestion.getDuration());
+        room.setCurrentDeadline(deadline);
+        roomSnapshotService.refresh(room);
+        //broadcasting next question, already serialized in the quiz plan
+        webSocketService.broadcastNewQuestion(roomCode, room.getPlan(), room.getCurrentQuestionIndex(), deadline);
         return currentQuestion;
     }
 
 
     public Question getCurrentQuestion(Long quizId) {
-        Quiz quiz = quizRepository.findById(quizId)
-                .orElseThrow(() -> new CustomException("Quiz not found"));
+        LiveRoom room = requireLiveRoom(quizId);
 
         // Check if quiz is in progress
-        if (quiz.getStatus() != QuizStatus.STARTED) {
+        if (room.getStatus() != QuizStatus.STARTED) {
             throw new CustomException("Quiz is not in progress");
         }
 
-        Question currentQuestion = quiz.getCurrentQuestion();
+        Question currentQuestion = room.getCurrentQuestion();
         if (currentQuestion == null) {
             throw new CustomException("No current question available");
         }
@@ -201,38 +283,103 @@ public class QuizSessionService {
         quiz.removeParticipant(participant);
         participantRepository.delete(participant);
         quizRepository.save(quiz);
+        joinAdmissionRegistry.peek(quiz.getRoomCode())
+                .ifPresent(admission -> admission.release(participant.getNickname()));
     }
 
 
     public QuizStatus getQuizStatus(Long quizId) {
+        LiveRoom room = liveRoomRegistry.peek(quizId).orElse(null);
+        if (room != null) {
+            return room.getStatus();
+        }
         Quiz quiz = quizRepository.findById(quizId)
                 .orElseThrow(() -> new CustomException("Quiz not found"));
         return quiz.getStatus();
     }
 
-    @Transactional
+    /**
+     * Queues the end of the current question on the room's mailbox. A timeout
+     * that lands after the quiz has ended is dropped.
+     */
     public void handleQuestionTimeout(String roomCode) {
-        try {
-            Quiz quiz = quizRepository.findByRoomCode(roomCode)
-                    .orElseThrow(() -> new CustomException("Quiz not found for room: " + roomCode));
+        LiveRoom room = liveRoomRegistry.findByRoomCode(roomCode)
+                .orElseThrow(() -> new CustomException("Quiz is not in progress"));
 
-            if (quiz.getStatus() != QuizStatus.STARTED) {
-                throw new CustomException("Quiz is not in progress");
+        room.getMailbox().execute(() -> {
+            if (room.getStatus() != QuizStatus.STARTED) {
+                return;
             }
 
             webSocketService.broadcastQuestionEnded(roomCode);
+            scoreFlushService.flush(room);
+
+            publishLeaderboard(room, false);
+        });
+    }
 
-            LeaderboardDTO leaderboard = leaderboardService.generateLeaderboard(quiz, false);
-            if (leaderboard == null) {
+    /**
+     * Closes a room whose host walked away without ending the quiz, the same
+     * way as a quiz the host ended.
+     */
+    public void abandonRoom(String roomCode) {
+        LiveRoom room = liveRoomRegistry.findByRoomCode(roomCode).orElse(null);
+        if (room == null) {
+            return;
+        }
+
+        room.getMailbox().execute(() -> endRoom(room));
+    }
+
+    /**
+     * Restarts the current question of a room rebuilt after a restart. When
+     * it went down was never persisted, so the question gets its full time
+     * again. A room with no question left to run is ended instead.
+     */
+    @EventListener
+    public void onRoomRehydrated(LiveRoomRehydratedEvent event) {
+        LiveRoom room = event.room();
+        room.getMailbox().run(() -> {
+            Question currentQuestion = room.getCurrentQuestion();
+            if (currentQuestion == null) {
+                endRoom(room);
                 return;
             }
-            
 
-            webSocketService.broadcastLeaderboardUpdate(roomCode, leaderboard);
+            try {
+                long deadline = quizTimerService.startQuestionTimer(room.getRoomCode(),
+                        room.getCurrentQuestionIndex(), room.getSlotCount(), currentQuestion.getDuration());
+                room.setCurrentDeadline(deadline);
+                roomSnapshotService.refresh(room);
+                webSocketService.broadcastNewQuestion(room.getRoomCode(), room.getPlan(), room.getCurrentQuestionIndex(), deadline);
+            } catch (RuntimeException e) {
+                // Never leave a room that looks live but has no timer
+                endRoom(room);
+                throw e;
+            }
+        });
+    }
+
+    private void publishLeaderboard(LiveRoom room, boolean isFinal) {
+        LeaderboardDTO leaderboard = leaderboardService.generateLeaderboard(room, isFinal);
+        if (leaderboard == null) {
+            return;
+        }
+
+        webSocketService.broadcastLeaderboardUpdate(room.getRoomCode(), leaderboard);
+        roomSnapshotService.refresh(room);
 
-            quizRepository.save(quiz);
-        } catch (Exception e) {
-            throw e;
+        // The room topic only carries the top K here, so everyone gets their own standing
+        if (leaderboardService.isTopKMode(room)) {
+            for (LiveParticipant participant : room.getParticipants()) {
+                webSocketService.sendParticipantRank(ParticipantAuthenticationToken.userName(participant.getId()), room.getRoomCode(),
+                        leaderboardService.generateParticipantRank(room, participant, leaderboard.isFinal()));
+            }
         }
     }
+
+    private LiveRoom requireLiveRoom(Long quizId) {
+        return liveRoomRegistry.find(quizId)
+                .orElseThrow(() -> new CustomException("Quiz is not in progress"));
+    }
 }
@@ -1,155 +1,245 @@
 package com.example.QuizRush.service;
 
-import com.example.QuizRush.dto.websocket.WebSocketMessageType;
+import com.example.QuizRush.config.LiveExecutors;
+import com.example.QuizRush.live.HashedWheelTimer;
+import com.example.QuizRush.live.RoomTimingState;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
 public class QuizTimerService {
-    // Store active timers (ScheduledFuture) for each room
-    private final ConcurrentHashMap<String, ScheduledFuture<?>> activeTimers;
+    // All question timing for a room: countdown, question start and participant answer times
+    private final ConcurrentHashMap<String, RoomTimingState> rooms;
 
-    // Store remaining time for each room
-    private final ConcurrentHashMap<String, AtomicInteger> remainingTimes;
+    // The wheel only keeps time; countdown ticks and timeouts run on the worker pool
+    private final HashedWheelTimer timer;
+    private final ExecutorService timerWorkers;
 
-    // Store original question durations for each room
-    private final ConcurrentHashMap<String, Integer> originalDurations;
+    // Old clients still expect a TIMER_UPDATE every second instead of counting down to the deadline
+    private final boolean legacyTicks;
 
-    // Store participant timings: roomCode -> (participantId -> timeSpent)
-    private final ConcurrentHashMap<String, ConcurrentHashMap<Long, Integer>> participantTimings;
-
-    // Store timestamp when each question started: roomCode -> startTimestamp
-    private final ConcurrentHashMap<String, Long> questionStartTimes;
-
-    // Store whether participant has answered current question: roomCode -> (participantId -> hasAnswered)
-    private final ConcurrentHashMap<String, ConcurrentHashMap<Long, Boolean>> participantAnsweredStatus;
-
-    private final ScheduledExecutorService scheduler;
+    // Rooms with no question started or answered for this long are treated as abandoned
+    private final long idleTtlMillis;
+    private final long reapIntervalMillis;
 
     private final WebSocketService webSocketService;
     @Lazy
     private final QuizSessionService quizSessionService;
 
-    public QuizTimerService(@Lazy QuizSessionService quizSessionService, WebSocketService webSocketService) {
+    public QuizTimerService(
+            @Lazy QuizSessionService quizSessionService,
+            WebSocketService webSocketService,
+            LiveExecutors liveExecutors,
+            @Value("${quiz.timer.tick-ms:100}") long tickMillis,
+            @Value("${quiz.timer.wheel-size:512}") int wheelSize,
+            @Value("${quiz.timer.workers:4}") int workers,
+            @Value("${quiz.timer.legacy-ticks:false}") boolean legacyTicks,
+            @Value("${quiz.rooms.idle-ttl-ms:1800000}") long idleTtlMillis,
+            @Value("${quiz.rooms.reap-interval-ms:60000}") long reapIntervalMillis) {
         this.quizSessionService = quizSessionService;
         this.webSocketService = webSocketService;
-        this.activeTimers = new ConcurrentHashMap<>();
-        this.remainingTimes = new ConcurrentHashMap<>();
-        this.originalDurations = new ConcurrentHashMap<>();
-        this.participantTimings = new ConcurrentHashMap<>();
-        this.questionStartTimes = new ConcurrentHashMap<>();
-        this.participantAnsweredStatus = new ConcurrentHashMap<>();
-        this.scheduler = Executors.newScheduledThreadPool(1);
+        this.rooms = new ConcurrentHashMap<>();
+        this.legacyTicks = legacyTicks;
+        this.idleTtlMillis = idleTtlMillis;
+        this.reapIntervalMillis = reapIntervalMillis;
+        this.timerWorkers = liveExecutors.newWorkerPool("quiz-timer-worker-", workers);
+        this.timer = new HashedWheelTimer("quiz-timer-wheel", tickMillis, TimeUnit.MILLISECONDS, wheelSize, timerWorkers);
     }
 
-    public void startQuestionTimer(String roomCode, int durationInSeconds) {
-        // Stop existing timer if any
-        stopQuestionTimer(roomCode);
+    @PostConstruct
+    public void startReaper() {
+        if (idleTtlMillis > 0 && reapIntervalMillis > 0) {
+            scheduleReap();
+        }
+    }
 
-        // Store the original duration
-        originalDurations.put(roomCode, durationInSeconds);
+    @PreDestroy
+    public void shutdown() {
+        timer.stop();
+        timerWorkers.shutdown();
+    }
 
-        // Store the question start timestamp
-        questionStartTimes.put(roomCode, System.currentTimeMillis());
+    /**
+     * Starts the countdown for a room's current question and returns its
+     * deadline in server epoch millis. The question's answered set is sized
+     * for the room's participant slots.
+     */
+    public long startQuestionTimer(String roomCode, int questionIndex, int slotCount, int durationInSeconds) {
+        RoomTimingState state = rooms.computeIfAbsent(roomCode, RoomTimingState::new);
 
-        // Reset participant answered status for new question
-        participantAnsweredStatus.put(roomCode, new ConcurrentHashMap<>());
+        // Stop existing timer if any
+        state.stopCountdown();
 
-        // Initialize remaining time
-        AtomicInteger remainingTime = new AtomicInteger(durationInSeconds);
-        remainingTimes.put(roomCode, remainingTime);
+        long startTime = System.currentTimeMillis();
+        int generation = state.startQuestion(questionIndex, slotCount, startTime, durationInSeconds);
+        new QuestionCountdown(state, generation).start();
 
-        // Schedule periodic timer updates
-        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(() -> {
-            int timeLeft = remainingTime.decrementAndGet();
+        return state.getDeadlineMillis();
+    }
 
-            // Send timer update
-            webSocketService.broadcastTimerUpdate(roomCode, timeLeft);
+    public void stopQuestionTimer(String roomCode) {
+        RoomTimingState state = rooms.get(roomCode);
+        if (state != null) {
+            state.stopCountdown();
+        }
+        // We keep the question timing for potential calculations
+        // It's cleaned up in cleanupRoom()
+    }
 
-            if (timeLeft <= 0) {
-                stopQuestionTimer(roomCode);
-                quizSessionService.handleQuestionTimeout(roomCode);
-            }
-        }, 0, 1, TimeUnit.SECONDS);
+    /**
+     * Claims the participant's only answer to the question. Returns false for
+     * a repeat submission, or if the question is not the one being timed.
+     */
+    public boolean markAnswered(String roomCode, int questionIndex, int slot) {
+        RoomTimingState state = rooms.get(roomCode);
+        return state != null && state.markAnswered(questionIndex, slot);
+    }
 
-        activeTimers.put(roomCode, future);
+    public boolean hasAnswered(String roomCode, int questionIndex, int slot) {
+        RoomTimingState state = rooms.get(roomCode);
+        return state != null && state.hasAnswered(questionIndex, slot);
     }
 
-    public void stopQuestionTimer(String roomCode) {
-        ScheduledFuture<?> future = activeTimers.remove(roomCode);
-        if (future != null) {
-            future.cancel(false);
+    /**
+     * Records that the participant in the given slot answered now and returns
+     * their total time spent across questions.
+     *
+     * Time spent is the exact duration since the question started rather than
+     * the remaining time, so it is consistent for all participants regardless
+     * of when they answer.
+     */
+    public int recordAnswer(String roomCode, int slot) {
+        RoomTimingState state = rooms.get(roomCode);
+        if (state == null) {
+            return 0;
         }
-        // We keep the remainingTimes and originalDurations for potential calculations
-        // They'll be cleaned up in cleanupRoom()
+        return state.recordAnswer(slot, state.elapsedSeconds(System.currentTimeMillis()));
     }
 
-    public void recordAnswerTime(String roomCode, Long participantId, int timeSpent) {
-
-        // Check if participant has already answered this question
-        ConcurrentHashMap<Long, Boolean> answeredMap = participantAnsweredStatus.computeIfAbsent(
-                roomCode, k -> new ConcurrentHashMap<>());
+    /**
+     * Milliseconds since the room's current question started.
+     */
+    public long getElapsedMillis(String roomCode) {
+        RoomTimingState state = rooms.get(roomCode);
+        return state != null ? Math.max(System.currentTimeMillis() - state.getQuestionStartMillis(), 0) : 0;
+    }
 
+    public int getRemainingTime(String roomCode) {
+        RoomTimingState state = rooms.get(roomCode);
+        return state != null ? state.remainingSeconds(System.currentTimeMillis()) : 0;
+    }
 
-        // Mark participant as having answered this question
-        answeredMap.put(participantId, true);
+    public int getTotalTime(String roomCode, int slot) {
+        RoomTimingState state = rooms.get(roomCode);
+        return state != null ? state.getTotalTime(slot) : 0;
+    }
 
-        // Don't record times greater than the question duration
-        int maxDuration = originalDurations.getOrDefault(roomCode, 0);
-        if (timeSpent > maxDuration) {
-            timeSpent = maxDuration;
+    public void cleanupRoom(String roomCode) {
+        RoomTimingState state = rooms.remove(roomCode);
+        if (state != null) {
+            state.stopCountdown();
         }
+    }
 
-        // Get or create the map for this room
-        ConcurrentHashMap<Long, Integer> roomTimings = participantTimings.computeIfAbsent(roomCode,
-                k -> new ConcurrentHashMap<>());
+    /**
+     * Evicts the timing state of rooms that have been idle longer than the TTL
+     * and asks the session service to close them. Returns the number of rooms
+     * reclaimed.
+     */
+    public int reapIdleRooms() {
+        long cutoff = System.currentTimeMillis() - idleTtlMillis;
+        List<RoomTimingState> reaped = new ArrayList<>();
+        for (RoomTimingState state : rooms.values()) {
+            if (state.getLastActivityMillis() < cutoff && rooms.remove(state.getRoomCode(), state)) {
+                state.stopCountdown();
+                reaped.add(state);
+            }
+        }
+        if (reaped.isEmpty()) {
+            return 0;
+        }
 
-        // Get existing time and add new time
-        int currentTotal = roomTimings.getOrDefault(participantId, 0);
-        int newTotal = currentTotal + timeSpent;
+        long slots = 0;
+        for (RoomTimingState state : reaped) {
+            slots += state.getSlotCapacity();
+            try {
+                quizSessionService.abandonRoom(state.getRoomCode());
+            } catch (Exception e) {
+                log.error("Failed to close abandoned room {}: {}", state.getRoomCode(), e.getMessage(), e);
+            }
+        }
+        log.info("Reaped {} idle rooms, reclaimed {} participant timing slots; {} rooms still active",
+                reaped.size(), slots, rooms.size());
+        return reaped.size();
+    }
 
-        roomTimings.put(participantId, newTotal);
+    private void scheduleReap() {
+        timer.schedule(() -> {
+            try {
+                reapIdleRooms();
+            } finally {
+                scheduleReap();
+            }
+        }, reapIntervalMillis, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Calculate time spent based on exact duration since question start
-     * instead of using the remaining time. This ensures consistent timing
-     * for all participants regardless of when they answer.
+     * Countdown for a room's current question. Normally it fires once at the
+     * deadline; in legacy mode it also ticks every second. Ticks are scheduled
+     * against the start time so the countdown does not drift.
      */
-    public int calculateTimeSpentExact(String roomCode) {
-        Long startTime = questionStartTimes.get(roomCode);
+    private final class QuestionCountdown implements Runnable {
+        private final RoomTimingState state;
+        private final int generation;
+        private final long startNanos = System.nanoTime();
+        private int ticks;
+
+        QuestionCountdown(RoomTimingState state, int generation) {
+            this.state = state;
+            this.generation = generation;
+        }
 
-        long currentTime = System.currentTimeMillis();
-        long elapsedMillis = currentTime - startTime;
-        int elapsedSeconds = (int) (elapsedMillis / 1000);
+        void start() {
+            int durationInSeconds = state.getDurationSeconds();
+            scheduleAt(legacyTicks ? Math.min(1, durationInSeconds) : durationInSeconds);
+        }
 
-        // Cap time spent at question duration
-        int maxDuration = originalDurations.getOrDefault(roomCode, 0);
-        return Math.min(elapsedSeconds, maxDuration);
-    }
+        @Override
+        public void run() {
+            if (!state.isCurrentCountdown(generation)) {
+                return;
+            }
 
-    public int getRemainingTime(String roomCode) {
-        AtomicInteger remaining = remainingTimes.get(roomCode);
-        return remaining != null ? remaining.get() : 0;
-    }
+            if (legacyTicks) {
+                ticks++;
+                int timeLeft = Math.max(state.getDurationSeconds() - ticks, 0);
 
-    public int getTotalTime(String roomCode, Long participantId) {
-        return participantTimings.getOrDefault(roomCode, new ConcurrentHashMap<>())
-                .getOrDefault(participantId, 0);
-    }
+                // Send timer update
+                webSocketService.broadcastTimerUpdate(state.getRoomCode(), timeLeft);
 
-    public void cleanupRoom(String roomCode) {
-        stopQuestionTimer(roomCode);
-        participantTimings.remove(roomCode);
-        originalDurations.remove(roomCode);
-        remainingTimes.remove(roomCode);
-        questionStartTimes.remove(roomCode);
-        participantAnsweredStatus.remove(roomCode);
+                if (timeLeft > 0) {
+                    scheduleAt(ticks + 1);
+                    return;
+                }
+            }
+
+            // Only the countdown still current for the room may end the question
+            if (state.finishCountdown(generation)) {
+                quizSessionService.handleQuestionTimeout(state.getRoomCode());
+            }
+        }
+
+        private void scheduleAt(int secondsFromStart) {
+            long delayNanos = startNanos + TimeUnit.SECONDS.toNanos(secondsFromStart) - System.nanoTime();
+            state.setCountdown(generation, timer.schedule(this, delayNanos, TimeUnit.NANOSECONDS));
+        }
     }
-}
\ No newline at end of file
+}
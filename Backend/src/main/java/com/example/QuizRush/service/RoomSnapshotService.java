@@ -0,0 +1,147 @@
+package com.example.QuizRush.service;
+
+import com.example.QuizRush.dto.leaderboard.LeaderBoardEntryDTO;
+import com.example.QuizRush.dto.websocket.QuestionDTO;
+import com.example.QuizRush.dto.websocket.RoomSnapshotDTO;
+import com.example.QuizRush.entities.enums.QuizStatus;
+import com.example.QuizRush.live.JoinAdmission;
+import com.example.QuizRush.live.JoinAdmissionRegistry;
+import com.example.QuizRush.live.LiveParticipant;
+import com.example.QuizRush.live.LiveRoom;
+import com.example.QuizRush.live.LiveRoomRegistry;
+import com.example.QuizRush.live.RankedLeaderboard;
+import com.example.QuizRush.security.CustomUserDetails;
+import com.example.QuizRush.security.ParticipantAuthenticationToken;
+import com.example.QuizRush.websocket.SessionHealthChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.security.Principal;
+import java.util.function.Predicate;
+
+/**
+ * Builds the snapshot a client receives when it subscribes to a room.
+ *
+ * The part shared by every subscriber is rebuilt only when the question or
+ * the published leaderboard changes; each subscriber just adds their own
+ * entry. Snapshots are served from memory only, and only to the quiz's own
+ * participants and its host. Sessions that are degraded to snapshot-only
+ * delivery, or restored from it, are pushed a fresh one.
+ */
+@Service
+public class RoomSnapshotService {
+    private final LiveRoomRegistry liveRoomRegistry;
+    private final JoinAdmissionRegistry joinAdmissionRegistry;
+    private final LeaderboardService leaderboardService;
+    private final WebSocketService webSocketService;
+
+    public RoomSnapshotService(LiveRoomRegistry liveRoomRegistry,
+                               JoinAdmissionRegistry joinAdmissionRegistry,
+                               LeaderboardService leaderboardService,
+                               WebSocketService webSocketService) {
+        this.liveRoomRegistry = liveRoomRegistry;
+        this.joinAdmissionRegistry = joinAdmissionRegistry;
+        this.leaderboardService = leaderboardService;
+        this.webSocketService = webSocketService;
+    }
+
+    /**
+     * Replaces the timer ticks and roster deltas a lagging session skips, and
+     * resyncs it once it has caught up.
+     */
+    @EventListener
+    public void onSessionHealthChanged(SessionHealthChangedEvent event) {
+        RoomSnapshotDTO snapshot = liveRoomRegistry.peekByRoomCode(event.roomCode())
+                .map(room -> snapshot(room, null))
+                .orElseGet(() -> joinAdmissionRegistry.peek(event.roomCode())
+                        .map(RoomSnapshotService::waitingSnapshot)
+                        .orElse(null));
+        if (snapshot != null) {
+            webSocketService.sendRoomSnapshot(event.sessionId(), event.roomCode(), snapshot);
+        }
+    }
+
+    public void refresh(LiveRoom room) {
+        RankedLeaderboard leaderboard = room.getLeaderboard();
+        int index = room.getCurrentQuestionIndex();
+        QuestionDTO question = null;
+        Long deadline = null;
+        if (room.getStatus() == QuizStatus.STARTED && index >= 0 && index < room.getQuestionCount()) {
+            question = room.getPlan().getQuestionDTO(index);
+            deadline = room.getCurrentDeadline() > 0 ? room.getCurrentDeadline() : null;
+        }
+        room.setSnapshot(new RoomSnapshotDTO(
+                room.getRoomCode(),
+                room.getStatus(),
+                index,
+                question,
+                deadline,
+                leaderboard.top(leaderboardService.topK(room)),
+                leaderboard.size(),
+                null,
+                null
+        ));
+    }
+
+    /**
+     * Returns the snapshot for a subscriber, or null if the room is neither
+     * live nor waiting on this node, or the subscriber is neither one of its
+     * participants nor its host.
+     */
+    public RoomSnapshotDTO snapshotFor(String roomCode, Principal principal) {
+        LiveRoom room = liveRoomRegistry.peekByRoomCode(roomCode).orElse(null);
+        if (room != null) {
+            return mayRead(room.getQuizId(), room::isHost, principal) ? snapshot(room, principal) : null;
+        }
+        return joinAdmissionRegistry.peek(roomCode)
+                .filter(admission -> mayRead(admission.getQuizId(), admission::isHost, principal))
+                .map(RoomSnapshotService::waitingSnapshot)
+                .orElse(null);
+    }
+
+    private static RoomSnapshotDTO waitingSnapshot(JoinAdmission admission) {
+        return new RoomSnapshotDTO(admission.getRoomCode(), QuizStatus.WAITING, null, null, null,
+                null, admission.getAdmittedCount(), null, System.currentTimeMillis());
+    }
+
+    private RoomSnapshotDTO snapshot(LiveRoom room, Principal principal) {
+        RoomSnapshotDTO shared = room.getSnapshot();
+        if (shared == null) {
+            refresh(room);
+            shared = room.getSnapshot();
+        }
+
+        LeaderBoardEntryDTO self = null;
+        if (principal instanceof ParticipantAuthenticationToken token) {
+            LiveParticipant participant = token.getParticipantId() != null
+                    ? room.getParticipant(token.getParticipantId())
+                    : room.getParticipantByNickname(token.getNickname());
+            if (participant != null) {
+                self = room.getLeaderboard().entryOf(participant.getId());
+            }
+        }
+
+        return new RoomSnapshotDTO(
+                shared.getRoomCode(),
+                shared.getStatus(),
+                shared.getCurrentQuestionIndex(),
+                shared.getCurrentQuestion(),
+                shared.getDeadline(),
+                shared.getLeaderboard(),
+                shared.getTotalParticipants(),
+                self,
+                System.currentTimeMillis()
+        );
+    }
+
+    // Participant tokens carry their quiz; hosts must own it
+    private static boolean mayRead(Long quizId, Predicate<Long> isHost, Principal principal) {
+        if (principal instanceof ParticipantAuthenticationToken token) {
+            return quizId.equals(token.getQuizId());
+        }
+        return principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof CustomUserDetails host
+                && isHost.test(host.getId());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.QuizRush.service;
+
+import com.example.QuizRush.dto.websocket.ParticipantDTO;
+import com.example.QuizRush.dto.websocket.RosterDeltaDTO;
+import com.example.QuizRush.entities.Quiz;
+import com.example.QuizRush.exception.CustomException;
+import com.example.QuizRush.repository.ParticipantRepository;
+import com.example.QuizRush.repository.QuizRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects joins and leaves per room and broadcasts them as one ROSTER_DELTA
+ * per interval. A join storm then costs one frame per subscriber per
+ * interval instead of one per join.
+ */
+@Slf4j
+@Service
+public class RosterAggregator {
+    private final ConcurrentHashMap<String, PendingRoster> pending;
+    private final WebSocketService webSocketService;
+    private final QuizRepository quizRepository;
+    private final ParticipantRepository participantRepository;
+    private final ScheduledExecutorService scheduler;
+
+    @Value("${quiz.roster.flush-interval-ms:250}")
+    private long flushIntervalMillis;
+
+    public RosterAggregator(WebSocketService webSocketService,
+                            QuizRepository quizRepository,
+                            ParticipantRepository participantRepository) {
+        this.webSocketService = webSocketService;
+        this.quizRepository = quizRepository;
+        this.participantRepository = participantRepository;
+        this.pending = new ConcurrentHashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("roster-aggregator-"));
+    }
+
+    @PostConstruct
+    public void startFlushing() {
+        scheduler.scheduleWithFixedDelay(this::flushAll,
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        flushAll();
+    }
+
+    public void participantJoined(String roomCode, ParticipantDTO participant) {
+        pending.compute(roomCode, (code, roster) -> {
+            roster = roster != null ? roster : new PendingRoster();
+            roster.join(participant);
+            return roster;
+        });
+    }
+
+    public void participantLeft(String roomCode, ParticipantDTO participant) {
+        pending.compute(roomCode, (code, roster) -> {
+            roster = roster != null ? roster : new PendingRoster();
+            roster.leave(participant);
+            return roster;
+        });
+    }
+
+    /**
+     * Builds the full roster of a room, for clients that need to resync.
+     */
+    public RosterDeltaDTO snapshot(String roomCode) {
+        Quiz quiz = quizRepository.findByRoomCode(roomCode)
+                .orElseThrow(() -> new CustomException("Quiz not found for room: " + roomCode));
+        List<ParticipantDTO> participants = participantRepository.findByQuizId(quiz.getId()).stream()
+                .map(participant -> new ParticipantDTO(participant.getId(), participant.getNickname(),
+                        participant.getScore(), roomCode))
+                .toList();
+        return new RosterDeltaDTO(participants, List.of(), true);
+    }
+
+    public void flushAll() {
+        for (String roomCode : pending.keySet()) {
+            PendingRoster roster = pending.remove(roomCode);
+            if (roster == null || roster.isEmpty()) {
+                continue;
+            }
+            try {
+                webSocketService.broadcastRosterDelta(roomCode, roster.toDelta());
+            } catch (Exception e) {
+                log.error("Failed to broadcast roster delta to room {}: {}", roomCode, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Net roster change of a room since the last flush. Only accessed inside
+     * {@link ConcurrentHashMap#compute} or after removal from the map.
+     */
+    private static final class PendingRoster {
+        private final Map<Long, ParticipantDTO> added = new LinkedHashMap<>();
+        private final Map<Long, ParticipantDTO> removed = new LinkedHashMap<>();
+
+        void join(ParticipantDTO participant) {
+            removed.remove(participant.getId());
+            added.put(participant.getId(), participant);
+        }
+
+        void leave(ParticipantDTO participant) {
+            // Joining and leaving within one interval cancels out
+            if (added.remove(participant.getId()) == null) {
+                removed.put(participant.getId(), participant);
+            }
+        }
+
+        boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+
+        RosterDeltaDTO toDelta() {
+            return new RosterDeltaDTO(new ArrayList<>(added.values()), new ArrayList<>(removed.values()), false);
+        }
+    }
+}
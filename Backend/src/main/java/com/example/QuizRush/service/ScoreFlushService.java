@@ -0,0 +1,83 @@
+package com.example.QuizRush.service;
+
+import com.example.QuizRush.live.LiveRoom;
+import com.example.QuizRush.live.LiveRoomRegistry;
+import com.example.QuizRush.repository.ParticipantRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the scores accumulated in live rooms to the participants table.
+ *
+ * Rooms are flushed when a question ends and when the quiz ends. A periodic
+ * flush of every live room runs as a safety net against lost updates. Each
+ * flush is a single atomic increment statement per chunk of participants.
+ */
+@Slf4j
+@Service
+public class ScoreFlushService {
+    private final ParticipantRepository participantRepository;
+    private final LiveRoomRegistry liveRoomRegistry;
+    private final ScheduledExecutorService scheduler;
+
+    @Value("${quiz.scores.flush-interval-ms:5000}")
+    private long flushIntervalMillis;
+
+    public ScoreFlushService(ParticipantRepository participantRepository, LiveRoomRegistry liveRoomRegistry) {
+        this.participantRepository = participantRepository;
+        this.liveRoomRegistry = liveRoomRegistry;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("score-flush-"));
+    }
+
+    @PostConstruct
+    public void startPeriodicFlush() {
+        if (flushIntervalMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::flushAll,
+                    flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        flushAll();
+    }
+
+    /**
+     * Flushes the pending score deltas of one room.
+     * On failure the deltas are put back so the next flush retries them.
+     */
+    public void flush(LiveRoom room) {
+        Map<Long, Integer> deltas = room.getScoreAccumulator().drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            participantRepository.addScores(deltas);
+        } catch (Exception e) {
+            room.getScoreAccumulator().restore(deltas);
+            log.error("Failed to flush {} scores for room {}: {}", deltas.size(), room.getRoomCode(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    public void flushAll() {
+        for (LiveRoom room : liveRoomRegistry.getRooms()) {
+            try {
+                flush(room);
+            } catch (Exception e) {
+                // Already logged, the next run retries
+            }
+        }
+    }
+}
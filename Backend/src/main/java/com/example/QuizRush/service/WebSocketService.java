@@ -1,8 +1,17 @@
 package com.example.QuizRush.service;
 
 import com.example.QuizRush.dto.leaderboard.LeaderboardDTO;
+import com.example.QuizRush.dto.leaderboard.ParticipantRankDTO;
 import com.example.QuizRush.dto.websocket.*;
+import com.example.QuizRush.live.QuizPlan;
+import com.example.QuizRush.websocket.EncodedFrame;
+import com.example.QuizRush.websocket.RoomFanout;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 
@@ -10,9 +19,11 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class WebSocketService {
     private final SimpMessagingTemplate simpleMessagingTemplate;
+    private final RoomFanout roomFanout;
 
-    public WebSocketService(SimpMessagingTemplate simpleMessagingTemplate) {
+    public WebSocketService(SimpMessagingTemplate simpleMessagingTemplate, RoomFanout roomFanout) {
         this.simpleMessagingTemplate = simpleMessagingTemplate;
+        this.roomFanout = roomFanout;
     }
 
     public <T> void broadcastToQuizRoom(String roomCode, T payload, WebSocketMessageType type) {
@@ -23,8 +34,12 @@ public class WebSocketService {
                 return;
             }
             WebSocketMessage<T> message = new WebSocketMessage<>(type, payload, roomCode, System.currentTimeMillis());
+            // Serialized and framed once for the whole room, unless the fan-out is off
+            if (roomFanout.broadcast(roomCode, message)) {
+                return;
+            }
             String destination = "/topic/quiz/" + roomCode;
-            simpleMessagingTemplate.convertAndSend(destination, message);
+            simpleMessagingTemplate.convertAndSend(destination, message, frameHeaders(type));
         } catch (Exception e) {
             throw e;
         }
@@ -38,8 +53,21 @@ public class WebSocketService {
         broadcastToQuizRoom(roomCode, null, WebSocketMessageType.QUIZ_ENDED);
     }
 
-    public void broadcastNewQuestion(String roomCode, QuestionDTO questionDTO){
-        broadcastToQuizRoom(roomCode, questionDTO, WebSocketMessageType.NEW_QUESTION);
+    /**
+     * Broadcasts a question from the quiz plan, whose JSON is already
+     * serialized, so only the deadline and timestamp are written here.
+     */
+    public void broadcastNewQuestion(String roomCode, QuizPlan plan, int questionIndex, long deadline) {
+        byte[] payload = plan.newQuestionMessage(questionIndex, deadline, System.currentTimeMillis());
+        if (roomFanout.broadcast(roomCode, WebSocketMessageType.NEW_QUESTION, payload)) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setHeader(EncodedFrame.HEADER, new EncodedFrame(WebSocketMessageType.NEW_QUESTION));
+        accessor.setLeaveMutable(true);
+        simpleMessagingTemplate.send("/topic/quiz/" + roomCode,
+                MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
     }
     public void broadcastQuestionEnded(String roomCode) {
         broadcastToQuizRoom(roomCode, null, WebSocketMessageType.QUESTION_ENDED);
@@ -58,12 +86,35 @@ public class WebSocketService {
         }
     }
 
-    public void notifyParticipantJoined(String roomCode, ParticipantDTO participant) {
-        broadcastToQuizRoom(roomCode, participant, WebSocketMessageType.PARTICIPANT_JOINED);
+    public void sendParticipantRank(String userName, String roomCode, ParticipantRankDTO rank) {
+        WebSocketMessage<ParticipantRankDTO> message =
+                new WebSocketMessage<>(WebSocketMessageType.PERSONAL_RANK, rank, roomCode, System.currentTimeMillis());
+        simpleMessagingTemplate.convertAndSendToUser(userName, "/queue/rank", message,
+                frameHeaders(WebSocketMessageType.PERSONAL_RANK));
+    }
+
+    public void broadcastRosterDelta(String roomCode, RosterDeltaDTO delta) {
+        broadcastToQuizRoom(roomCode, delta, WebSocketMessageType.ROSTER_DELTA);
+    }
+
+    /**
+     * Sends the room snapshot to a single session on its room topic, for a
+     * client that skipped incremental updates while it was lagging.
+     */
+    public void sendRoomSnapshot(String sessionId, String roomCode, RoomSnapshotDTO snapshot) {
+        WebSocketMessage<RoomSnapshotDTO> message = new WebSocketMessage<>(
+                WebSocketMessageType.ROOM_SNAPSHOT, snapshot, roomCode, System.currentTimeMillis());
+        if (!roomFanout.sendToSession(sessionId, roomCode, message)) {
+            log.debug("Session {} is not subscribed to room {}, snapshot not sent", sessionId, roomCode);
+        }
     }
 
-    public void notifyParticipantLeft(String roomCode, ParticipantDTO participant) {
-        broadcastToQuizRoom(roomCode, participant, WebSocketMessageType.PARTICIPANT_LEFT);
+    // Lets sessions that negotiated a binary encoding share one encoding of the message
+    private MessageHeaders frameHeaders(WebSocketMessageType type) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setHeader(EncodedFrame.HEADER, new EncodedFrame(type));
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
     }
 
 }
@@ -0,0 +1,155 @@
+package com.example.QuizRush.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Negotiates CBOR instead of JSON for STOMP sessions that ask for it.
+ *
+ * A client opts in with an {@code encoding:cbor} header on its CONNECT frame.
+ * Only raw WebSocket sessions can, since SockJS carries text frames only.
+ * Their broadcasts then arrive as binary MESSAGE frames with the same
+ * structure as the JSON ones, marked by {@code encoding:cbor} and with the
+ * message type in a {@code message-type} header. Messages sent without an
+ * {@link EncodedFrame} stay JSON for every session.
+ *
+ * Registered on both client channels: inbound it handles CONNECT, outbound
+ * it swaps in the binary payload.
+ */
+@Slf4j
+@Component
+public class BinaryFrameEncoding implements ChannelInterceptor {
+    public static final String ENCODING_HEADER = "encoding";
+    public static final String TYPE_HEADER = "message-type";
+    public static final String CBOR = "cbor";
+
+    private static final String BINARY_CAPABLE_ATTRIBUTE = "quiz.binaryFrames";
+
+    private final boolean enabled;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+    private final Counter transcodedCounter;
+
+    public BinaryFrameEncoding(MeterRegistry meterRegistry,
+                               @Value("${quiz.ws.binary-frames.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        this.transcodedCounter = meterRegistry.counter("quiz.ws.frames.transcoded", "encoding", CBOR);
+        Gauge.builder("quiz.ws.sessions.binary", cborSessions, Set::size).register(meterRegistry);
+    }
+
+    /**
+     * Marks sessions of the endpoint it is added to as able to receive
+     * binary frames.
+     */
+    public HandshakeInterceptor binaryCapableEndpoint() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                           WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                attributes.put(BINARY_CAPABLE_ATTRIBUTE, Boolean.TRUE);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!enabled) {
+            return message;
+        }
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(headers);
+        if (SimpMessageType.CONNECT.equals(messageType)) {
+            negotiate(message);
+            return message;
+        }
+        if (!SimpMessageType.MESSAGE.equals(messageType)
+                || !(headers.get(EncodedFrame.HEADER) instanceof EncodedFrame frame)
+                || !(message.getPayload() instanceof byte[] json)
+                || !cborSessions.contains(SimpMessageHeaderAccessor.getSessionId(headers))) {
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        // Spring only writes binary WebSocket frames for octet-stream content
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(ENCODING_HEADER, CBOR);
+        accessor.setNativeHeader(TYPE_HEADER, frame.getType().name());
+        return MessageBuilder.createMessage(encode(frame, json), accessor.getMessageHeaders());
+    }
+
+    boolean isCbor(String sessionId) {
+        return enabled && cborSessions.contains(sessionId);
+    }
+
+    byte[] encode(EncodedFrame frame, byte[] json) {
+        return frame.cbor(json, this::transcode);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        cborSessions.remove(event.getSessionId());
+    }
+
+    private void negotiate(Message<?> message) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (!CBOR.equalsIgnoreCase(accessor.getFirstNativeHeader(ENCODING_HEADER))) {
+            return;
+        }
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(BINARY_CAPABLE_ATTRIBUTE))) {
+            log.debug("Session {} asked for CBOR over a text-only transport, keeping JSON", accessor.getSessionId());
+            return;
+        }
+        cborSessions.add(accessor.getSessionId());
+    }
+
+    // Streams the JSON tokens straight into CBOR, without building an object tree
+    private byte[] transcode(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = cborFactory.createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode frame as CBOR", e);
+        }
+        transcodedCounter.increment();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.QuizRush.websocket;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+/**
+ * Hands the STOMP handler a {@link ConflatingWebSocketSession} in place of
+ * each raw session, for every callback of that session, and registers the
+ * sessions with the {@link SessionHealthMonitor}.
+ */
+public class ConflatingWebSocketHandler extends WebSocketHandlerDecorator {
+    private static final String SUBSCRIBE_COMMAND = "SUBSCRIBE\n";
+    private static final String DESTINATION_HEADER = "\ndestination:";
+    private static final String ROOM_TOPIC_PREFIX = "/topic/quiz/";
+
+    private final OutboundConflation conflation;
+    private final SessionHealthMonitor healthMonitor;
+    private final int sendTimeLimitMillis;
+    private final int bufferSizeLimit;
+
+    public ConflatingWebSocketHandler(WebSocketHandler delegate, OutboundConflation conflation,
+                                      SessionHealthMonitor healthMonitor, int sendTimeLimitMillis, int bufferSizeLimit) {
+        super(delegate);
+        this.conflation = conflation;
+        this.healthMonitor = healthMonitor;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        ConflatingWebSocketSession conflating =
+                new ConflatingWebSocketSession(session, conflation, sendTimeLimitMillis, bufferSizeLimit);
+        conflation.register(conflating);
+        healthMonitor.register(conflating);
+        super.afterConnectionEstablished(conflating);
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        ConflatingWebSocketSession conflating = conflation.getSession(session.getId());
+        if (conflating != null && conflating.getRoomCode() == null && message instanceof TextMessage textMessage) {
+            conflating.setRoomCode(subscribedRoom(textMessage.getPayload()));
+        }
+        super.handleMessage(conflating != null ? conflating : session, message);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        super.handleTransportError(decorated(session), exception);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        ConflatingWebSocketSession conflating = conflation.unregister(session.getId());
+        healthMonitor.unregister(session.getId());
+        if (conflating != null) {
+            conflating.discard();
+        }
+        super.afterConnectionClosed(conflating != null ? conflating : session, closeStatus);
+    }
+
+    // Room code of a SUBSCRIBE to a room topic, for grouping health stats
+    private static String subscribedRoom(String frame) {
+        if (!frame.startsWith(SUBSCRIBE_COMMAND)) {
+            return null;
+        }
+        int destination = frame.indexOf(DESTINATION_HEADER + ROOM_TOPIC_PREFIX);
+        if (destination < 0) {
+            return null;
+        }
+        int start = destination + DESTINATION_HEADER.length() + ROOM_TOPIC_PREFIX.length();
+        int end = start;
+        while (end < frame.length() && frame.charAt(end) != '\n' && frame.charAt(end) != '/') {
+            end++;
+        }
+        return end > start ? frame.substring(start, end) : null;
+    }
+
+    private WebSocketSession decorated(WebSocketSession session) {
+        WebSocketSession conflating = conflation.getSession(session.getId());
+        return conflating != null ? conflating : session;
+    }
+}
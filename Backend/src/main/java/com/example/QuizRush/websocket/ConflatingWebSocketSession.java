@@ -0,0 +1,261 @@
+package com.example.QuizRush.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Session whose outbound frames go through a conflating queue drained by a
+ * single sender at a time.
+ *
+ * Spring's ConcurrentWebSocketSessionDecorator sits on top of this session
+ * and never waits on it, since sending only queues. The send time and buffer
+ * size limits are therefore enforced here, the same way: a session that
+ * exceeds them is closed as not reliable.
+ *
+ * The session also exposes its backlog and send latency to the
+ * {@link SessionHealthMonitor}, which may degrade it to skip incremental
+ * frames or evict it.
+ */
+@Slf4j
+public class ConflatingWebSocketSession extends WebSocketSessionDecorator {
+    // Weight of the latest send in the moving average latency
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final OutboundConflation conflation;
+    private final long sendTimeLimitNanos;
+    private final int bufferSizeLimit;
+    private final String transport;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock
+    private final ArrayDeque<PendingFrame> queue = new ArrayDeque<>();
+    private final Map<OutboundConflation.Frame, PendingFrame> latest = new HashMap<>();
+    private int queuedFrames;
+    private int bufferedBytes;
+    private boolean draining;
+
+    // When the send in progress started, 0 while idle
+    private volatile long sendStartNanos;
+    private volatile double avgSendNanos;
+    private volatile boolean limitExceeded;
+    private volatile boolean degraded;
+    private volatile String roomCode;
+
+    public ConflatingWebSocketSession(WebSocketSession delegate, OutboundConflation conflation,
+                                      int sendTimeLimitMillis, int bufferSizeLimit) {
+        super(delegate);
+        this.conflation = conflation;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMillis);
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.transport = SessionHealthMonitor.transportOf(delegate);
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        sendMessage(message, OutboundConflation.inspect(message));
+    }
+
+    /**
+     * Queues a frame whose destination and type are already known, so a
+     * frame shared by many sessions is only inspected once.
+     */
+    void sendMessage(WebSocketMessage<?> message, OutboundConflation.Frame info) throws IOException {
+        if (limitExceeded) {
+            return;
+        }
+        long sendAge = getSendAgeNanos();
+        if (sendAge > sendTimeLimitNanos) {
+            exceedLimit("Send time " + TimeUnit.NANOSECONDS.toMillis(sendAge)
+                    + " (ms) for session '" + getId() + "' exceeded the allowed limit");
+        }
+
+        if (degraded && info != null && info.isIncremental()) {
+            conflation.skipped(info);
+            return;
+        }
+
+        PendingFrame frame = new PendingFrame(message, info != null && info.isConflated() ? info : null);
+        boolean startDrain;
+        boolean overflow;
+        lock.lock();
+        try {
+            if (frame.key != null) {
+                PendingFrame replaced = latest.put(frame.key, frame);
+                if (replaced != null) {
+                    // Left in the queue and skipped, so ordered frames keep their positions
+                    replaced.dropped = true;
+                    queuedFrames--;
+                    bufferedBytes -= replaced.size;
+                    conflation.conflated(frame.key);
+                }
+            }
+            queue.add(frame);
+            queuedFrames++;
+            bufferedBytes += frame.size;
+            overflow = bufferedBytes > bufferSizeLimit;
+            startDrain = !draining;
+            draining = true;
+        } finally {
+            lock.unlock();
+        }
+
+        if (overflow) {
+            exceedLimit("Buffer size " + bufferedBytes + " bytes for session '" + getId()
+                    + "' exceeds the allowed limit " + bufferSizeLimit);
+        }
+        if (startDrain) {
+            conflation.getSenders().execute(this::drain);
+        }
+    }
+
+    /**
+     * Drops all queued frames, once the session is closed.
+     */
+    public void discard() {
+        lock.lock();
+        try {
+            queue.clear();
+            latest.clear();
+            queuedFrames = 0;
+            bufferedBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the session as not reliable, from a sender thread so a stuck
+     * transport cannot block the caller.
+     */
+    public void evict() {
+        limitExceeded = true;
+        discard();
+        conflation.getSenders().execute(() -> {
+            try {
+                getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("Failed to close session {}: {}", getId(), e.getMessage());
+            }
+        });
+    }
+
+    public String getTransport() {
+        return transport;
+    }
+
+    public String getRoomCode() {
+        return roomCode;
+    }
+
+    public void setRoomCode(String roomCode) {
+        this.roomCode = roomCode;
+    }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    public void setDegraded(boolean degraded) {
+        this.degraded = degraded;
+    }
+
+    public Backlog getBacklog() {
+        lock.lock();
+        try {
+            return new Backlog(queuedFrames, bufferedBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * How long the send in progress has been running, 0 while idle.
+     */
+    public long getSendAgeNanos() {
+        long started = sendStartNanos;
+        return started != 0 ? System.nanoTime() - started : 0;
+    }
+
+    public double getAvgSendNanos() {
+        return avgSendNanos;
+    }
+
+    private void drain() {
+        while (true) {
+            PendingFrame frame;
+            lock.lock();
+            try {
+                frame = queue.poll();
+                while (frame != null && frame.dropped) {
+                    frame = queue.poll();
+                }
+                if (frame == null) {
+                    draining = false;
+                    return;
+                }
+                if (frame.key != null) {
+                    latest.remove(frame.key, frame);
+                }
+                queuedFrames--;
+                bufferedBytes -= frame.size;
+            } finally {
+                lock.unlock();
+            }
+
+            long started = System.nanoTime();
+            try {
+                sendStartNanos = started;
+                getDelegate().sendMessage(frame.message);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to send to session {}: {}", getId(), e.getMessage());
+                limitExceeded = true;
+                discard();
+                lock.lock();
+                try {
+                    draining = false;
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            } finally {
+                sendStartNanos = 0;
+            }
+            long elapsed = System.nanoTime() - started;
+            avgSendNanos = avgSendNanos == 0 ? elapsed
+                    : avgSendNanos + LATENCY_SMOOTHING * (elapsed - avgSendNanos);
+        }
+    }
+
+    private void exceedLimit(String reason) throws SessionLimitExceededException {
+        limitExceeded = true;
+        discard();
+        throw new SessionLimitExceededException(reason, CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    public record Backlog(int queuedFrames, int bufferedBytes) {
+    }
+
+    private static final class PendingFrame {
+        private final WebSocketMessage<?> message;
+        private final OutboundConflation.Frame key;
+        private final int size;
+        private boolean dropped;
+
+        PendingFrame(WebSocketMessage<?> message, OutboundConflation.Frame key) {
+            this.message = message;
+            this.key = key;
+            this.size = message.getPayloadLength();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.QuizRush.websocket;
+
+import com.example.QuizRush.dto.websocket.WebSocketMessageType;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Alternative encodings of one broadcast, carried along as a message header.
+ *
+ * The broker copies the header onto the message of every subscriber, so the
+ * binary form is produced by the first subscriber that asked for it and
+ * reused for all others.
+ */
+public class EncodedFrame {
+    public static final String HEADER = "quizEncodedFrame";
+
+    private final WebSocketMessageType type;
+    private volatile byte[] cbor;
+
+    public EncodedFrame(WebSocketMessageType type) {
+        this.type = type;
+    }
+
+    public WebSocketMessageType getType() {
+        return type;
+    }
+
+    byte[] cbor(byte[] json, UnaryOperator<byte[]> transcoder) {
+        byte[] encoded = cbor;
+        if (encoded == null) {
+            synchronized (this) {
+                encoded = cbor;
+                if (encoded == null) {
+                    encoded = transcoder.apply(json);
+                    cbor = encoded;
+                }
+            }
+        }
+        return encoded;
+    }
+}
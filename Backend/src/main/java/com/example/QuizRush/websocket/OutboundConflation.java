@@ -0,0 +1,198 @@
+package com.example.QuizRush.websocket;
+
+import com.example.QuizRush.config.LiveExecutors;
+import com.example.QuizRush.dto.websocket.WebSocketMessageType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Latest-value-wins outbound queues for WebSocket sessions.
+ *
+ * Frames whose newer value makes the older one useless (timer ticks,
+ * leaderboards, personal ranks, room snapshots) replace any frame of the same type still
+ * queued for the same destination. Everything else is delivered in order and
+ * never dropped. Sessions the {@link SessionHealthMonitor} marks as lagging
+ * also skip incremental frames until they catch up.
+ */
+@Component
+public class OutboundConflation {
+    private static final Set<String> CONFLATED_TYPES = EnumSet.of(
+                    WebSocketMessageType.TIMER_UPDATE,
+                    WebSocketMessageType.LEADERBOARD_UPDATE,
+                    WebSocketMessageType.PERSONAL_RANK,
+                    WebSocketMessageType.ROOM_SNAPSHOT).stream()
+            .map(Enum::name)
+            .collect(Collectors.toUnmodifiableSet());
+
+    // Frames that only matter in sequence; a lagging client resyncs from the room snapshot instead
+    private static final Set<String> INCREMENTAL_TYPES = EnumSet.of(
+                    WebSocketMessageType.TIMER_UPDATE,
+                    WebSocketMessageType.ROSTER_DELTA).stream()
+            .map(Enum::name)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private static final String MESSAGE_COMMAND = "MESSAGE\n";
+    private static final String DESTINATION_HEADER = "\ndestination:";
+    private static final String TYPE_PREFIX = "{\"type\":\"";
+    private static final String TYPE_HEADER = "\n" + BinaryFrameEncoding.TYPE_HEADER + ":";
+
+    private final boolean enabled;
+    // Sends to the client run here, so a slow client never blocks the thread that published
+    private final ExecutorService senders;
+    private final MeterRegistry meterRegistry;
+    private final SessionHealthMonitor healthMonitor;
+    private final Map<String, Counter> conflatedCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> skippedCounters = new ConcurrentHashMap<>();
+    private final Map<String, ConflatingWebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    public OutboundConflation(LiveExecutors liveExecutors, MeterRegistry meterRegistry,
+                              SessionHealthMonitor healthMonitor,
+                              @Value("${quiz.ws.conflation.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        this.senders = liveExecutors.newElasticPool("ws-sender-");
+        this.meterRegistry = meterRegistry;
+        this.healthMonitor = healthMonitor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+
+    /**
+     * Decorates the STOMP handler so every session gets a conflating queue,
+     * bounded by the same limits as Spring's own session buffer.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler, int sendTimeLimitMillis, int bufferSizeLimit) {
+        if (!enabled) {
+            return handler;
+        }
+        return new ConflatingWebSocketHandler(handler, this, healthMonitor, sendTimeLimitMillis, bufferSizeLimit);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    void register(ConflatingWebSocketSession session) {
+        sessions.put(session.getId(), session);
+    }
+
+    ConflatingWebSocketSession unregister(String sessionId) {
+        return sessions.remove(sessionId);
+    }
+
+    ConflatingWebSocketSession getSession(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    Executor getSenders() {
+        return senders;
+    }
+
+    void conflated(Frame frame) {
+        conflatedCounters.computeIfAbsent(frame.type(),
+                type -> meterRegistry.counter("quiz.ws.frames.conflated", "type", type)).increment();
+    }
+
+    void skipped(Frame frame) {
+        skippedCounters.computeIfAbsent(frame.type(),
+                type -> meterRegistry.counter("quiz.ws.frames.skipped", "type", type)).increment();
+    }
+
+    /**
+     * Reads the destination and message type of a STOMP MESSAGE frame, or
+     * returns null for any other frame.
+     */
+    static Frame inspect(WebSocketMessage<?> message) {
+        if (message instanceof BinaryMessage binaryMessage) {
+            return inspectBinary(binaryMessage);
+        }
+        if (!(message instanceof TextMessage textMessage)) {
+            return null;
+        }
+        String frame = textMessage.getPayload();
+        if (!frame.startsWith(MESSAGE_COMMAND)) {
+            return null;
+        }
+        int headerEnd = frame.indexOf("\n\n");
+        int destination = frame.indexOf(DESTINATION_HEADER);
+        if (headerEnd < 0 || destination < 0 || destination > headerEnd
+                || !frame.startsWith(TYPE_PREFIX, headerEnd + 2)) {
+            return null;
+        }
+
+        int typeStart = headerEnd + 2 + TYPE_PREFIX.length();
+        int typeEnd = frame.indexOf('"', typeStart);
+        if (typeEnd < 0) {
+            return null;
+        }
+        int destinationStart = destination + DESTINATION_HEADER.length();
+        String destinationValue = frame.substring(destinationStart, frame.indexOf('\n', destinationStart));
+        return new Frame(destinationValue, frame.substring(typeStart, typeEnd));
+    }
+
+    // Binary frames carry their type in a header, as the payload is not JSON
+    private static Frame inspectBinary(BinaryMessage message) {
+        ByteBuffer payload = message.getPayload();
+        int headerEnd = -1;
+        for (int i = payload.position(); i < payload.limit() - 1; i++) {
+            if (payload.get(i) == '\n' && payload.get(i + 1) == '\n') {
+                headerEnd = i;
+                break;
+            }
+        }
+        if (headerEnd < 0) {
+            return null;
+        }
+        byte[] headerBytes = new byte[headerEnd - payload.position() + 1];
+        payload.duplicate().get(headerBytes);
+        String headers = new String(headerBytes, StandardCharsets.UTF_8);
+        if (!headers.startsWith(MESSAGE_COMMAND)) {
+            return null;
+        }
+        String destination = headerValue(headers, DESTINATION_HEADER);
+        String type = headerValue(headers, TYPE_HEADER);
+        return destination != null && type != null ? new Frame(destination, type) : null;
+    }
+
+    private static String headerValue(String headers, String header) {
+        int start = headers.indexOf(header);
+        if (start < 0) {
+            return null;
+        }
+        start += header.length();
+        return headers.substring(start, headers.indexOf('\n', start));
+    }
+
+    /**
+     * Destination and type of an outbound message. Conflated frames are
+     * keyed by it.
+     */
+    record Frame(String destination, String type) {
+        boolean isConflated() {
+            return CONFLATED_TYPES.contains(type);
+        }
+
+        boolean isIncremental() {
+            return INCREMENTAL_TYPES.contains(type);
+        }
+    }
+}
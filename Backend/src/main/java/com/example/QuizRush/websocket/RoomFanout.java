@@ -0,0 +1,272 @@
+package com.example.QuizRush.websocket;
+
+import com.example.QuizRush.dto.websocket.WebSocketMessageType;
+import com.example.QuizRush.exception.CustomException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers room broadcasts to subscribers without going through the broker.
+ *
+ * The simple broker builds a separate message per subscriber, which the
+ * STOMP handler then encodes into a separate frame. This path instead
+ * serializes a broadcast once and encodes one STOMP frame per distinct
+ * subscription id and encoding. Clients mostly use the same subscription id,
+ * so a whole room usually shares one frame, which is put on the outbound
+ * queue of every {@link ConflatingWebSocketSession} in the room as is.
+ *
+ * Subscriptions to room topics are tracked from the session events. The
+ * broker still records them, but no longer receives room broadcasts while
+ * the room has subscribers here.
+ *
+ * Frames are queued on the publishing thread, while the broker hands its
+ * messages to the outbound channel's executor, so nothing orders fan-out
+ * frames against broker-routed ones. Every room topic message therefore
+ * goes through here; only a broadcast to a room with no subscribers yet
+ * falls back to the broker, which has no one to order it against either.
+ * Everything else a room member receives is broker-routed: personal ranks,
+ * the replies on the user queues (answer results, time sync, roster) and the
+ * snapshot returned for an app destination subscription. Clients must not
+ * assume any of those arrive in step with the room topic, for example that
+ * an answer result comes before the QUESTION_ENDED or NEW_QUESTION that
+ * followed it. Without conflation sessions are not reachable here, so the
+ * fan-out is off and the broker delivers everything as before.
+ */
+@Slf4j
+@Component
+public class RoomFanout {
+    static final String ROOM_TOPIC_PREFIX = "/topic/quiz/";
+
+    private final boolean enabled;
+    private final OutboundConflation conflation;
+    private final BinaryFrameEncoding binaryFrameEncoding;
+    private final ObjectMapper objectMapper;
+    private final StompEncoder stompEncoder = new StompEncoder();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    // Room code -> subscriptions to its topic
+    private final Map<String, Map<Subscription, Boolean>> rooms = new ConcurrentHashMap<>();
+    // Session id -> subscription id -> room code, to undo UNSUBSCRIBE and DISCONNECT
+    private final Map<String, Map<String, String>> sessionSubscriptions = new ConcurrentHashMap<>();
+
+    private final Counter broadcastCounter;
+    private final DistributionSummary framesPerBroadcast;
+
+    public RoomFanout(OutboundConflation conflation, BinaryFrameEncoding binaryFrameEncoding,
+                      ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                      @Value("${quiz.ws.fanout.enabled:true}") boolean enabled) {
+        this.conflation = conflation;
+        this.binaryFrameEncoding = binaryFrameEncoding;
+        this.objectMapper = objectMapper;
+        // Sessions are only reachable here when they are wrapped for conflation
+        this.enabled = enabled && conflation.isEnabled();
+        this.broadcastCounter = meterRegistry.counter("quiz.ws.fanout.broadcasts");
+        this.framesPerBroadcast = DistributionSummary.builder("quiz.ws.fanout.frames")
+                .description("Distinct frames encoded per broadcast")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sends a message to everyone subscribed to the room's topic. Returns
+     * false when the broker has to deliver it instead.
+     */
+    public boolean broadcast(String roomCode, com.example.QuizRush.dto.websocket.WebSocketMessage<?> message) {
+        if (!enabled) {
+            return false;
+        }
+        try {
+            return broadcast(roomCode, message.getType(), objectMapper.writeValueAsBytes(message));
+        } catch (JsonProcessingException e) {
+            throw new CustomException("Failed to serialize " + message.getType() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends an already serialized JSON message to everyone subscribed to the
+     * room's topic. Returns false when the fan-out is disabled or knows of
+     * no subscription to the room, so the broker delivers it instead.
+     */
+    public boolean broadcast(String roomCode, WebSocketMessageType type, byte[] json) {
+        if (!enabled) {
+            return false;
+        }
+        Map<Subscription, Boolean> subscriptions = rooms.get(roomCode);
+        if (subscriptions == null || subscriptions.isEmpty()) {
+            // A subscription whose event has not been handled yet is still reached by the broker
+            return false;
+        }
+
+        String destination = ROOM_TOPIC_PREFIX + roomCode;
+        String messageId = roomCode + "-" + messageIds.incrementAndGet();
+        OutboundConflation.Frame info = new OutboundConflation.Frame(destination, type.name());
+        EncodedFrame encoded = new EncodedFrame(type);
+        Map<FrameKey, WebSocketMessage<?>> frames = new HashMap<>();
+
+        for (Subscription subscription : subscriptions.keySet()) {
+            ConflatingWebSocketSession session = conflation.getSession(subscription.sessionId());
+            if (session == null) {
+                continue;
+            }
+            FrameKey key = new FrameKey(subscription.subscriptionId(),
+                    binaryFrameEncoding.isCbor(subscription.sessionId()));
+            WebSocketMessage<?> frame = frames.get(key);
+            if (frame == null) {
+                frame = encodeFrame(key, destination, messageId, type, json, encoded);
+                frames.put(key, frame);
+            }
+            deliver(session, frame, info);
+        }
+        broadcastCounter.increment();
+        framesPerBroadcast.record(frames.size());
+        return true;
+    }
+
+    /**
+     * Sends a message to one session only, through its subscriptions to the
+     * room's topic. Returns false if the session is not subscribed there.
+     */
+    public boolean sendToSession(String sessionId, String roomCode,
+                                 com.example.QuizRush.dto.websocket.WebSocketMessage<?> message) {
+        ConflatingWebSocketSession session = conflation.getSession(sessionId);
+        Map<String, String> subscriptions = sessionSubscriptions.get(sessionId);
+        if (session == null || subscriptions == null) {
+            return false;
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new CustomException("Failed to serialize " + message.getType() + ": " + e.getMessage());
+        }
+
+        String destination = ROOM_TOPIC_PREFIX + roomCode;
+        String messageId = roomCode + "-" + messageIds.incrementAndGet();
+        OutboundConflation.Frame info = new OutboundConflation.Frame(destination, message.getType().name());
+        EncodedFrame encoded = new EncodedFrame(message.getType());
+        boolean sent = false;
+        for (Map.Entry<String, String> subscription : subscriptions.entrySet()) {
+            if (roomCode.equals(subscription.getValue())) {
+                FrameKey key = new FrameKey(subscription.getKey(), binaryFrameEncoding.isCbor(sessionId));
+                deliver(session, encodeFrame(key, destination, messageId, message.getType(), json, encoded), info);
+                sent = true;
+            }
+        }
+        return sent;
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        subscribe(accessor.getSessionId(), accessor.getSubscriptionId(), accessor.getDestination());
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessionSubscriptions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, roomCode) ->
+                    removeFromRoom(roomCode, new Subscription(event.getSessionId(), subscriptionId)));
+        }
+    }
+
+    void subscribe(String sessionId, String subscriptionId, String destination) {
+        // Only the room topic itself, as the broker would match it
+        if (sessionId == null || subscriptionId == null || destination == null
+                || !destination.startsWith(ROOM_TOPIC_PREFIX)
+                || destination.indexOf('/', ROOM_TOPIC_PREFIX.length()) >= 0
+                || destination.length() == ROOM_TOPIC_PREFIX.length()) {
+            return;
+        }
+        String roomCode = destination.substring(ROOM_TOPIC_PREFIX.length());
+        sessionSubscriptions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, roomCode);
+        rooms.computeIfAbsent(roomCode, code -> new ConcurrentHashMap<>())
+                .put(new Subscription(sessionId, subscriptionId), Boolean.TRUE);
+    }
+
+    void unsubscribe(String sessionId, String subscriptionId) {
+        Map<String, String> subscriptions = sessionId != null ? sessionSubscriptions.get(sessionId) : null;
+        String roomCode = subscriptions != null && subscriptionId != null ? subscriptions.remove(subscriptionId) : null;
+        if (roomCode != null) {
+            removeFromRoom(roomCode, new Subscription(sessionId, subscriptionId));
+        }
+    }
+
+    private void removeFromRoom(String roomCode, Subscription subscription) {
+        rooms.computeIfPresent(roomCode, (code, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+
+    // The same frame StompSubProtocolHandler would write for this subscription
+    private WebSocketMessage<?> encodeFrame(FrameKey key, String destination, String messageId,
+                                           WebSocketMessageType type, byte[] json, EncodedFrame encoded) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setSubscriptionId(key.subscriptionId());
+        accessor.setMessageId(messageId);
+        if (key.cbor()) {
+            accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            accessor.setNativeHeader(BinaryFrameEncoding.ENCODING_HEADER, BinaryFrameEncoding.CBOR);
+            accessor.setNativeHeader(BinaryFrameEncoding.TYPE_HEADER, type.name());
+            return new BinaryMessage(stompEncoder.encode(accessor.getMessageHeaders(),
+                    binaryFrameEncoding.encode(encoded, json)));
+        }
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return new TextMessage(stompEncoder.encode(accessor.getMessageHeaders(), json));
+    }
+
+    private static void deliver(ConflatingWebSocketSession session, WebSocketMessage<?> frame,
+                                OutboundConflation.Frame info) {
+        try {
+            session.sendMessage(frame, info);
+        } catch (SessionLimitExceededException e) {
+            // The broker path would have the STOMP handler close it
+            log.debug("Closing session {}: {}", session.getId(), e.getMessage());
+            session.evict();
+        } catch (IOException e) {
+            log.debug("Failed to send to session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private record Subscription(String sessionId, String subscriptionId) {
+    }
+
+    private record FrameKey(String subscriptionId, boolean cbor) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.QuizRush.websocket;
+
+/**
+ * Published when a session is degraded to snapshot-only delivery or restored
+ * from it. Either way the session needs a fresh snapshot of its room.
+ */
+public record SessionHealthChangedEvent(String sessionId, String roomCode, boolean degraded) {
+}
@@ -0,0 +1,211 @@
+package com.example.QuizRush.websocket;
+
+import com.example.QuizRush.dto.websocket.SessionHealthDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.sockjs.transport.session.PollingSockJsSession;
+import org.springframework.web.socket.sockjs.transport.session.StreamingSockJsSession;
+import org.springframework.web.socket.sockjs.transport.session.WebSocketServerSockJsSession;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Watches the delivery health of every WebSocket session.
+ *
+ * On each scan a session whose backlog or send in progress passes the
+ * degrade thresholds is switched to snapshot-only delivery: incremental
+ * frames are skipped while leaderboards, ranks and quiz flow events still get
+ * through. It is restored once it has drained. Both transitions publish a
+ * {@link SessionHealthChangedEvent}, so the session is sent a full room
+ * snapshot in place of what it skipped. A session past the evict thresholds
+ * is disconnected.
+ */
+@Slf4j
+@Component
+public class SessionHealthMonitor {
+
+    private final Map<String, ConflatingWebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final long scanIntervalMillis;
+    private final int degradeQueuedFrames;
+    private final int degradePendingBytes;
+    private final long degradeSendNanos;
+    private final int evictPendingBytes;
+    private final long evictSendNanos;
+
+    private final Counter degradedCounter;
+    private final Counter evictedCounter;
+
+    public SessionHealthMonitor(MeterRegistry meterRegistry,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${quiz.ws.health.scan-interval-ms:1000}") long scanIntervalMillis,
+                                @Value("${quiz.ws.health.degrade-queued-frames:32}") int degradeQueuedFrames,
+                                @Value("${quiz.ws.health.degrade-pending-bytes:65536}") int degradePendingBytes,
+                                @Value("${quiz.ws.health.degrade-send-ms:2000}") long degradeSendMillis,
+                                @Value("${quiz.ws.health.evict-pending-bytes:524288}") int evictPendingBytes,
+                                @Value("${quiz.ws.health.evict-send-ms:15000}") long evictSendMillis) {
+        this.eventPublisher = eventPublisher;
+        this.scanIntervalMillis = scanIntervalMillis;
+        this.degradeQueuedFrames = degradeQueuedFrames;
+        this.degradePendingBytes = degradePendingBytes;
+        this.degradeSendNanos = TimeUnit.MILLISECONDS.toNanos(degradeSendMillis);
+        this.evictPendingBytes = evictPendingBytes;
+        this.evictSendNanos = TimeUnit.MILLISECONDS.toNanos(evictSendMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("ws-health-"));
+
+        Gauge.builder("quiz.ws.sessions", sessions, Map::size).register(meterRegistry);
+        Gauge.builder("quiz.ws.sessions.lagging", this, SessionHealthMonitor::countDegraded).register(meterRegistry);
+        this.degradedCounter = meterRegistry.counter("quiz.ws.sessions.degraded");
+        this.evictedCounter = meterRegistry.counter("quiz.ws.sessions.evicted");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (scanIntervalMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::scan, scanIntervalMillis, scanIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    public void register(ConflatingWebSocketSession session) {
+        sessions.put(session.getId(), session);
+    }
+
+    public void unregister(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    public void scan() {
+        for (ConflatingWebSocketSession session : sessions.values()) {
+            try {
+                check(session);
+            } catch (Exception e) {
+                log.error("Failed to check session {}: {}", session.getId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Delivery health of the sessions subscribed to the given rooms. Sessions
+     * in other rooms or in none are left out entirely.
+     */
+    public SessionHealthDTO snapshot(Predicate<String> includeRoom) {
+        Map<String, SessionHealthDTO.Stats> rooms = new HashMap<>();
+        Map<String, SessionHealthDTO.Stats> transports = new HashMap<>();
+        int included = 0;
+        int degraded = 0;
+        for (ConflatingWebSocketSession session : sessions.values()) {
+            String room = session.getRoomCode();
+            if (room == null || !includeRoom.test(room)) {
+                continue;
+            }
+            ConflatingWebSocketSession.Backlog backlog = session.getBacklog();
+            add(rooms.computeIfAbsent(room, key -> new SessionHealthDTO.Stats()), session, backlog);
+            add(transports.computeIfAbsent(session.getTransport(), key -> new SessionHealthDTO.Stats()), session, backlog);
+            included++;
+            if (session.isDegraded()) {
+                degraded++;
+            }
+        }
+        rooms.values().forEach(SessionHealthMonitor::finish);
+        transports.values().forEach(SessionHealthMonitor::finish);
+        return new SessionHealthDTO(included, degraded, rooms, transports);
+    }
+
+    static String transportOf(WebSocketSession session) {
+        if (session instanceof WebSocketServerSockJsSession) {
+            return "sockjs-websocket";
+        }
+        if (session instanceof StreamingSockJsSession) {
+            return "sockjs-streaming";
+        }
+        if (session instanceof PollingSockJsSession) {
+            return "sockjs-polling";
+        }
+        return "websocket";
+    }
+
+    private void check(ConflatingWebSocketSession session) {
+        ConflatingWebSocketSession.Backlog backlog = session.getBacklog();
+        long sendAge = session.getSendAgeNanos();
+
+        if (backlog.bufferedBytes() >= evictPendingBytes || sendAge >= evictSendNanos) {
+            log.info("Evicting session {} in room {}: {} frames, {} bytes pending, send running for {} ms",
+                    session.getId(), session.getRoomCode(), backlog.queuedFrames(), backlog.bufferedBytes(),
+                    TimeUnit.NANOSECONDS.toMillis(sendAge));
+            sessions.remove(session.getId());
+            evictedCounter.increment();
+            session.evict();
+            return;
+        }
+
+        boolean lagging = backlog.queuedFrames() >= degradeQueuedFrames
+                || backlog.bufferedBytes() >= degradePendingBytes
+                || sendAge >= degradeSendNanos;
+        if (lagging && !session.isDegraded()) {
+            log.info("Session {} in room {} is lagging, sending snapshots only", session.getId(), session.getRoomCode());
+            degradedCounter.increment();
+            session.setDegraded(true);
+            publishHealthChange(session);
+        } else if (!lagging && session.isDegraded() && backlog.queuedFrames() == 0) {
+            session.setDegraded(false);
+            publishHealthChange(session);
+        }
+    }
+
+    private void publishHealthChange(ConflatingWebSocketSession session) {
+        if (session.getRoomCode() != null) {
+            eventPublisher.publishEvent(
+                    new SessionHealthChangedEvent(session.getId(), session.getRoomCode(), session.isDegraded()));
+        }
+    }
+
+    private int countDegraded() {
+        int degraded = 0;
+        for (ConflatingWebSocketSession session : sessions.values()) {
+            if (session.isDegraded()) {
+                degraded++;
+            }
+        }
+        return degraded;
+    }
+
+    // Accumulates into the stats; the latency holds a sum of nanos until finish()
+    private static void add(SessionHealthDTO.Stats stats, ConflatingWebSocketSession session,
+                            ConflatingWebSocketSession.Backlog backlog) {
+        stats.setSessions(stats.getSessions() + 1);
+        if (session.isDegraded()) {
+            stats.setDegraded(stats.getDegraded() + 1);
+        }
+        stats.setQueuedFrames(stats.getQueuedFrames() + backlog.queuedFrames());
+        stats.setPendingBytes(stats.getPendingBytes() + backlog.bufferedBytes());
+        stats.setMaxSendAgeMillis(Math.max(stats.getMaxSendAgeMillis(),
+                TimeUnit.NANOSECONDS.toMillis(session.getSendAgeNanos())));
+        stats.setAvgSendLatencyMillis(stats.getAvgSendLatencyMillis() + session.getAvgSendNanos());
+    }
+
+    private static void finish(SessionHealthDTO.Stats stats) {
+        stats.setAvgSendLatencyMillis(stats.getAvgSendLatencyMillis() / stats.getSessions() / 1_000_000.0);
+    }
+}
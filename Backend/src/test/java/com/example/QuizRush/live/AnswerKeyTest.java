@@ -0,0 +1,162 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.entities.Question;
+import com.example.QuizRush.exception.CustomException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the bitmask scoring against the list-based rule AnswerService used
+ * before answer keys were compiled.
+ */
+class AnswerKeyTest {
+
+    @Test
+    void allCorrectEarnsFullPoints() {
+        AnswerKey key = AnswerKey.compile(question(4, 10, 1, 3));
+        long selection = key.encode(List.of(3, 1));
+
+        assertEquals(10, key.pointsFor(selection));
+        assertTrue(key.isFullyCorrect(selection));
+        assertEquals(2, key.correctlySelected(selection));
+        assertEquals(baselinePoints(List.of(1, 3), List.of(3, 1), 10), key.pointsFor(selection));
+    }
+
+    @Test
+    void partialSelectionEarnsRoundedShare() {
+        AnswerKey key = AnswerKey.compile(question(5, 10, 0, 2, 4));
+        long selection = key.encode(List.of(2));
+
+        // 10 * 1/3 rounds down, 10 * 2/3 rounds up
+        assertEquals(3, key.pointsFor(selection));
+        assertEquals(7, key.pointsFor(key.encode(List.of(0, 4))));
+        assertFalse(key.isFullyCorrect(selection));
+        assertEquals(baselinePoints(List.of(0, 2, 4), List.of(2), 10), key.pointsFor(selection));
+    }
+
+    @Test
+    void anyWrongOptionEarnsNothing() {
+        AnswerKey key = AnswerKey.compile(question(4, 10, 0, 1));
+
+        assertEquals(0, key.pointsFor(key.encode(List.of(2))));
+        assertEquals(0, key.pointsFor(key.encode(List.of(0, 1, 2))));
+        assertFalse(key.isFullyCorrect(key.encode(List.of(0, 1, 2))));
+        assertEquals(2, key.correctlySelected(key.encode(List.of(0, 1, 2))));
+    }
+
+    @Test
+    void emptySelectionEarnsNothing() {
+        AnswerKey key = AnswerKey.compile(question(4, 10, 0));
+
+        assertEquals(0L, key.encode(null));
+        assertEquals(0, key.pointsFor(key.encode(null)));
+        assertEquals(0, key.pointsFor(key.encode(List.of())));
+    }
+
+    @Test
+    void invalidIndicesCountAsWrong() {
+        AnswerKey key = AnswerKey.compile(question(4, 10, 0, 1));
+
+        for (Integer invalid : Arrays.asList(-1, 4, 63, 64, Integer.MAX_VALUE, null)) {
+            long selection = key.encode(Arrays.asList(0, 1, invalid));
+            assertEquals(0, key.pointsFor(selection), "index " + invalid);
+            assertFalse(key.isFullyCorrect(selection), "index " + invalid);
+        }
+    }
+
+    @Test
+    void repeatedIndicesCountOnce() {
+        AnswerKey key = AnswerKey.compile(question(4, 10, 0, 1));
+
+        // The old rule counted [0, 0] as two correct picks and awarded full points
+        assertEquals(5, key.pointsFor(key.encode(List.of(0, 0))));
+        assertEquals(10, key.pointsFor(key.encode(List.of(0, 1, 1))));
+        assertEquals(0, key.pointsFor(key.encode(List.of(0, 2, 2))));
+    }
+
+    @Test
+    void invalidKeysAreRejected() {
+        assertThrows(CustomException.class, () -> AnswerKey.compile(question(4, 10, 4)));
+        assertThrows(CustomException.class, () -> AnswerKey.compile(question(4, 10, -1)));
+        assertThrows(CustomException.class, () -> AnswerKey.compile(question(AnswerKey.MAX_OPTIONS + 1, 10, 0)));
+    }
+
+    @Test
+    void highestOptionUsesTheLastFreeBit() {
+        int last = AnswerKey.MAX_OPTIONS - 1;
+        AnswerKey key = AnswerKey.compile(question(AnswerKey.MAX_OPTIONS, 10, 0, last));
+
+        assertEquals(10, key.pointsFor(key.encode(List.of(last, 0))));
+        assertEquals(0, key.pointsFor(key.encode(List.of(last, AnswerKey.MAX_OPTIONS))));
+    }
+
+    @Test
+    void matchesTheListRuleForDistinctSelections() {
+        Random random = new Random(7);
+        for (int round = 0; round < 2000; round++) {
+            int optionCount = 1 + random.nextInt(AnswerKey.MAX_OPTIONS);
+            int points = random.nextInt(1000);
+            List<Integer> correct = sample(random, optionCount, 1 + random.nextInt(optionCount));
+            // Let a few selections reach past the options
+            List<Integer> selected = sample(random, optionCount + 2, random.nextInt(optionCount + 2));
+
+            AnswerKey key = AnswerKey.compile(question(optionCount, points, correct.toArray(Integer[]::new)));
+            long selection = key.encode(selected);
+
+            assertEquals(baselinePoints(correct, selected, points), key.pointsFor(selection),
+                    "correct " + correct + ", selected " + selected);
+            assertEquals(baselineFullyCorrect(correct, selected), key.isFullyCorrect(selection),
+                    "correct " + correct + ", selected " + selected);
+        }
+    }
+
+    // The scoring rule from before answer keys existed
+    private static int baselinePoints(List<Integer> correctOptionIndices, List<Integer> submittedOptionIndices, int points) {
+        int correctlySelected = 0;
+        int incorrectlySelected = 0;
+        for (Integer selectedIndex : submittedOptionIndices) {
+            if (correctOptionIndices.contains(selectedIndex))
+                correctlySelected++;
+            else
+                incorrectlySelected++;
+        }
+        if (incorrectlySelected != 0) {
+            return 0;
+        }
+        double fraction = (double) correctlySelected / correctOptionIndices.size();
+        return (int) Math.round(points * fraction);
+    }
+
+    private static boolean baselineFullyCorrect(List<Integer> correctOptionIndices, List<Integer> submittedOptionIndices) {
+        long correctlySelected = submittedOptionIndices.stream().filter(correctOptionIndices::contains).count();
+        return correctlySelected == correctOptionIndices.size()
+                && correctlySelected == submittedOptionIndices.size();
+    }
+
+    private static List<Integer> sample(Random random, int bound, int count) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < bound; i++) {
+            indices.add(i);
+        }
+        Collections.shuffle(indices, random);
+        return new ArrayList<>(indices.subList(0, count));
+    }
+
+    private static Question question(int optionCount, int points, Integer... correctOptionIndices) {
+        List<String> options = new ArrayList<>();
+        for (int i = 0; i < optionCount; i++) {
+            options.add("Option " + i);
+        }
+        return new Question(1L, "Question", 30, points, options, List.of(correctOptionIndices), null);
+    }
+}
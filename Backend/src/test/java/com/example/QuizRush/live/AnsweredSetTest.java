@@ -0,0 +1,109 @@
+package com.example.QuizRush.live;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnsweredSetTest {
+
+    @Test
+    void slotsAnswerOnlyOnce() {
+        AnsweredSet answered = new AnsweredSet(3, 10);
+
+        assertEquals(3, answered.getQuestionIndex());
+        assertFalse(answered.hasAnswered(4));
+        assertTrue(answered.markAnswered(4));
+        assertFalse(answered.markAnswered(4));
+        assertTrue(answered.hasAnswered(4));
+        assertFalse(answered.hasAnswered(5));
+    }
+
+    @Test
+    void wordBoundariesDoNotAlias() {
+        AnsweredSet answered = new AnsweredSet(0, 128);
+
+        // Slot 63 is the sign bit of the first word, slot 64 the low bit of the second
+        assertTrue(answered.markAnswered(63));
+        assertFalse(answered.hasAnswered(62));
+        assertFalse(answered.hasAnswered(64));
+        assertFalse(answered.hasAnswered(0));
+
+        assertTrue(answered.markAnswered(64));
+        assertFalse(answered.hasAnswered(0));
+        assertFalse(answered.hasAnswered(65));
+
+        assertTrue(answered.markAnswered(0));
+        assertTrue(answered.markAnswered(127));
+        assertFalse(answered.markAnswered(63));
+        assertFalse(answered.markAnswered(64));
+    }
+
+    @Test
+    void slotsBeyondTheCapacityUseTheOverflow() {
+        AnsweredSet answered = new AnsweredSet(0, 64);
+
+        assertTrue(answered.markAnswered(63));
+        // Slot 64 needs a second word, which a capacity of 64 does not allocate
+        assertTrue(answered.markAnswered(64));
+        assertFalse(answered.markAnswered(64));
+        assertTrue(answered.hasAnswered(64));
+        assertFalse(answered.hasAnswered(0));
+
+        assertTrue(answered.markAnswered(1000));
+        assertFalse(answered.markAnswered(1000));
+        assertFalse(answered.hasAnswered(999));
+    }
+
+    @Test
+    void emptyRoomStillAcceptsAnswers() {
+        AnsweredSet answered = new AnsweredSet(0, 0);
+
+        assertTrue(answered.markAnswered(0));
+        assertTrue(answered.markAnswered(64));
+        assertFalse(answered.markAnswered(0));
+    }
+
+    @Test
+    void concurrentMarksLetExactlyOneThrough() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                AnsweredSet answered = new AnsweredSet(round, 128);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        int wins = 0;
+                        // Neighbouring slots share a word, so the CAS retries are exercised
+                        for (int slot = 60; slot < 68; slot++) {
+                            if (answered.markAnswered(slot)) {
+                                wins++;
+                            }
+                        }
+                        return wins;
+                    }));
+                }
+                start.countDown();
+                int wins = 0;
+                for (Future<Integer> result : results) {
+                    wins += result.get(5, TimeUnit.SECONDS);
+                }
+                assertEquals(8, wins);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.QuizRush.live;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the wheel by hand: 10 ms ticks on an 8 bucket wheel, tasks run on
+ * the ticking thread.
+ */
+class HashedWheelTimerTest {
+    private static final long TICK_MILLIS = 10;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final HashedWheelTimer timer = new HashedWheelTimer(
+            TICK_MILLIS, TimeUnit.MILLISECONDS, 8, Runnable::run, clock::get);
+    private final List<String> fired = new ArrayList<>();
+
+    @Test
+    void firesOnTheTickAfterTheDeadline() {
+        HashedWheelTimer.Timeout timeout = timer.schedule(() -> fired.add("a"), 35, TimeUnit.MILLISECONDS);
+
+        assertFalse(timer.advance());
+        tick(3);
+        assertTrue(fired.isEmpty());
+
+        tick(1);
+        assertEquals(List.of("a"), fired);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextTick() {
+        tick(2);
+        timer.schedule(() -> fired.add("now"), 0, TimeUnit.MILLISECONDS);
+        timer.schedule(() -> fired.add("negative"), -5, TimeUnit.MILLISECONDS);
+
+        tick(1);
+        assertEquals(List.of("now", "negative"), fired);
+    }
+
+    @Test
+    void cancelledTimeoutsNeverFire() {
+        HashedWheelTimer.Timeout beforeTransfer = timer.schedule(() -> fired.add("pending"), 20, TimeUnit.MILLISECONDS);
+        HashedWheelTimer.Timeout inBucket = timer.schedule(() -> fired.add("bucketed"), 40, TimeUnit.MILLISECONDS);
+        timer.schedule(() -> fired.add("kept"), 40, TimeUnit.MILLISECONDS);
+
+        assertTrue(beforeTransfer.cancel());
+        tick(1);
+        assertTrue(inBucket.cancel());
+        assertFalse(inBucket.cancel());
+        tick(10);
+
+        assertEquals(List.of("kept"), fired);
+        assertTrue(beforeTransfer.isCancelled());
+        assertTrue(inBucket.isCancelled());
+        assertFalse(inBucket.isExpired());
+    }
+
+    @Test
+    void deadlinesBeyondOneRevolutionWaitForTheirRound() {
+        // 250 ms is tick 25: bucket 1 in the fourth round of an 80 ms wheel
+        timer.schedule(() -> fired.add("late"), 250, TimeUnit.MILLISECONDS);
+        timer.schedule(() -> fired.add("early"), 90, TimeUnit.MILLISECONDS);
+
+        tick(10);
+        assertEquals(List.of("early"), fired);
+
+        tick(15);
+        assertEquals(List.of("early"), fired);
+
+        tick(1);
+        assertEquals(List.of("early", "late"), fired);
+    }
+
+    @Test
+    void staleCountdownDoesNotEndTheQuestion() {
+        RoomTimingState state = new RoomTimingState("ROOM");
+
+        int first = state.startQuestion(0, 4, 0, 1);
+        state.setCountdown(first, timer.schedule(countdown(state, first, "q0"), 30, TimeUnit.MILLISECONDS));
+
+        // The next question starts before the first countdown was stopped
+        int second = state.startQuestion(1, 4, 0, 1);
+        state.setCountdown(second, timer.schedule(countdown(state, second, "q1"), 30, TimeUnit.MILLISECONDS));
+
+        tick(4);
+        assertEquals(List.of("q1"), fired);
+        assertFalse(state.finishCountdown(second));
+    }
+
+    @Test
+    void countdownStoppedBeforeItIsRecordedIsCancelled() {
+        RoomTimingState state = new RoomTimingState("ROOM");
+
+        int generation = state.startQuestion(0, 4, 0, 1);
+        state.stopCountdown();
+        HashedWheelTimer.Timeout timeout = timer.schedule(countdown(state, generation, "q0"), 30, TimeUnit.MILLISECONDS);
+        state.setCountdown(generation, timeout);
+
+        assertTrue(timeout.isCancelled());
+        tick(4);
+        assertTrue(fired.isEmpty());
+    }
+
+    // Same check QuizTimerService's countdown makes before timing out a question
+    private Runnable countdown(RoomTimingState state, int generation, String label) {
+        return () -> {
+            if (state.finishCountdown(generation)) {
+                fired.add(label);
+            }
+        };
+    }
+
+    private void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS));
+            assertTrue(timer.advance());
+        }
+    }
+}
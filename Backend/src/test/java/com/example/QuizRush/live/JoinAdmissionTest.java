@@ -0,0 +1,59 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.exception.CustomException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JoinAdmissionTest {
+
+    @Test
+    void closeWaitsForAdmittedJoinsToSettle() throws Exception {
+        JoinAdmission admission = new JoinAdmission(1L, "ROOM", 7L, 10, List.of(), 0);
+        assertEquals(0, admission.admit("alice"));
+        assertEquals(1, admission.admit("bob"));
+
+        admission.close();
+        assertThrows(CustomException.class, () -> admission.admit("carol"));
+        assertFalse(admission.awaitSettled(20));
+
+        admission.settled();
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> admission.awaitSettled(5000));
+        admission.settled();
+        assertTrue(waiting.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void refusedJoinsAreNotInFlight() {
+        JoinAdmission admission = new JoinAdmission(1L, "ROOM", 7L, 2, List.of("alice"), 1);
+
+        assertThrows(CustomException.class, () -> admission.admit("alice"));
+        assertEquals(1, admission.admit("bob"));
+        assertThrows(CustomException.class, () -> admission.admit("carol"));
+        admission.settled();
+
+        admission.close();
+        assertTrue(admission.awaitSettled(0));
+    }
+
+    @Test
+    void reopenedAdmissionKeepsItsReservations() {
+        JoinAdmission admission = new JoinAdmission(1L, "ROOM", 7L, 10, List.of(), 0);
+        admission.admit("alice");
+        admission.settled();
+
+        admission.close();
+        admission.reopen();
+
+        assertThrows(CustomException.class, () -> admission.admit("alice"));
+        assertEquals(1, admission.admit("bob"));
+        assertEquals(2, admission.getAdmittedCount());
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.dto.leaderboard.LeaderBoardEntryDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the treap against the sort-and-rank leaderboard it replaced: higher
+ * score first, then lower total time, and equal score and time share a dense
+ * rank.
+ */
+class RankedLeaderboardTest {
+
+    @Test
+    void tiesShareDenseRanks() {
+        RankedLeaderboard leaderboard = new RankedLeaderboard();
+        Map<Long, int[]> standings = new HashMap<>();
+        put(leaderboard, standings, 1L, 100, 30);
+        put(leaderboard, standings, 2L, 100, 30);
+        put(leaderboard, standings, 3L, 100, 45);
+        put(leaderboard, standings, 4L, 80, 10);
+        put(leaderboard, standings, 5L, 80, 10);
+        put(leaderboard, standings, 6L, 0, 0);
+
+        assertEquals(1, leaderboard.rankOf(1L));
+        assertEquals(1, leaderboard.rankOf(2L));
+        assertEquals(2, leaderboard.rankOf(3L));
+        assertEquals(3, leaderboard.rankOf(4L));
+        assertEquals(3, leaderboard.rankOf(5L));
+        assertEquals(4, leaderboard.rankOf(6L));
+        assertEquals(baseline(standings), leaderboard.all());
+    }
+
+    @Test
+    void scoreUpdatesMoveParticipants() {
+        RankedLeaderboard leaderboard = new RankedLeaderboard();
+        Map<Long, int[]> standings = new HashMap<>();
+        put(leaderboard, standings, 1L, 10, 5);
+        put(leaderboard, standings, 2L, 20, 5);
+        put(leaderboard, standings, 3L, 30, 5);
+        assertEquals(3, leaderboard.rankOf(1L));
+
+        put(leaderboard, standings, 1L, 40, 8);
+        assertEquals(1, leaderboard.rankOf(1L));
+        assertEquals(3, leaderboard.rankOf(2L));
+        assertEquals(baseline(standings), leaderboard.all());
+
+        // Joining an existing bucket merges the ranks below it
+        put(leaderboard, standings, 2L, 30, 5);
+        assertEquals(2, leaderboard.rankOf(2L));
+        assertEquals(2, leaderboard.rankOf(3L));
+        assertEquals(baseline(standings), leaderboard.all());
+    }
+
+    @Test
+    void removalClosesTheGap() {
+        RankedLeaderboard leaderboard = new RankedLeaderboard();
+        Map<Long, int[]> standings = new HashMap<>();
+        put(leaderboard, standings, 1L, 50, 1);
+        put(leaderboard, standings, 2L, 40, 1);
+        put(leaderboard, standings, 3L, 30, 1);
+
+        leaderboard.remove(2L);
+        standings.remove(2L);
+
+        assertEquals(0, leaderboard.rankOf(2L));
+        assertNull(leaderboard.entryOf(2L));
+        assertEquals(2, leaderboard.rankOf(3L));
+        assertEquals(2, leaderboard.size());
+        assertEquals(baseline(standings), leaderboard.all());
+    }
+
+    @Test
+    void neighboursAtTheEdges() {
+        RankedLeaderboard leaderboard = new RankedLeaderboard();
+        Map<Long, int[]> standings = new HashMap<>();
+        put(leaderboard, standings, 1L, 90, 1);
+        put(leaderboard, standings, 2L, 70, 1);
+        put(leaderboard, standings, 3L, 70, 1);
+        put(leaderboard, standings, 4L, 50, 1);
+
+        List<LeaderBoardEntryDTO> expected = baseline(standings);
+        assertEquals(List.of(expected.get(1)), leaderboard.neighboursOf(1L));
+        assertEquals(List.of(expected.get(2)), leaderboard.neighboursOf(4L));
+        // Inside a tied bucket the neighbours come from the bucket first
+        assertEquals(List.of(expected.get(0), expected.get(2)), leaderboard.neighboursOf(2L));
+        assertEquals(List.of(expected.get(1), expected.get(3)), leaderboard.neighboursOf(3L));
+
+        RankedLeaderboard single = new RankedLeaderboard();
+        single.update(7L, "p7", 10, 1);
+        assertTrue(single.neighboursOf(7L).isEmpty());
+        assertTrue(single.neighboursOf(8L).isEmpty());
+    }
+
+    @Test
+    void randomUpdatesMatchTheBaseline() {
+        Random random = new Random(42);
+        RankedLeaderboard leaderboard = new RankedLeaderboard();
+        Map<Long, int[]> standings = new HashMap<>();
+
+        for (int step = 0; step < 5000; step++) {
+            long id = random.nextInt(200);
+            if (random.nextInt(10) == 0) {
+                leaderboard.remove(id);
+                standings.remove(id);
+            } else {
+                // Narrow ranges so ties are common
+                put(leaderboard, standings, id, random.nextInt(20) * 10, random.nextInt(5));
+            }
+
+            if (step % 250 == 0) {
+                List<LeaderBoardEntryDTO> expected = baseline(standings);
+                assertEquals(expected, leaderboard.all());
+                assertEquals(expected.subList(0, Math.min(10, expected.size())), leaderboard.top(10));
+                for (int i = 0; i < expected.size(); i++) {
+                    LeaderBoardEntryDTO entry = expected.get(i);
+                    assertEquals(entry.getRank(), leaderboard.rankOf(entry.getParticipantId()));
+                    assertEquals(entry, leaderboard.entryOf(entry.getParticipantId()));
+
+                    List<LeaderBoardEntryDTO> neighbours = new ArrayList<>();
+                    if (i > 0) {
+                        neighbours.add(expected.get(i - 1));
+                    }
+                    if (i < expected.size() - 1) {
+                        neighbours.add(expected.get(i + 1));
+                    }
+                    assertEquals(neighbours, leaderboard.neighboursOf(entry.getParticipantId()));
+                }
+            }
+        }
+    }
+
+    private static void put(RankedLeaderboard leaderboard, Map<Long, int[]> standings,
+                            Long id, int score, int totalTimeSpent) {
+        leaderboard.update(id, "p" + id, score, totalTimeSpent);
+        standings.put(id, new int[]{score, totalTimeSpent});
+    }
+
+    // The leaderboard as the original service generated it, with ties listed by participant id
+    private static List<LeaderBoardEntryDTO> baseline(Map<Long, int[]> standings) {
+        List<LeaderBoardEntryDTO> entries = new ArrayList<>();
+        standings.forEach((id, standing) ->
+                entries.add(new LeaderBoardEntryDTO(id, "p" + id, standing[0], standing[1], 0)));
+        entries.sort(Comparator.comparing(LeaderBoardEntryDTO::getScore).reversed()
+                .thenComparing(LeaderBoardEntryDTO::getTotalTimeSpent)
+                .thenComparing(LeaderBoardEntryDTO::getParticipantId));
+
+        int rank = 1;
+        for (int i = 0; i < entries.size(); i++) {
+            LeaderBoardEntryDTO entry = entries.get(i);
+            LeaderBoardEntryDTO previous = i > 0 ? entries.get(i - 1) : null;
+            if (previous != null && entry.getScore().equals(previous.getScore())
+                    && entry.getTotalTimeSpent().equals(previous.getTotalTimeSpent())) {
+                entry.setRank(previous.getRank());
+            } else {
+                entry.setRank(rank);
+                rank++;
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.QuizRush.live;
+
+import com.example.QuizRush.exception.CustomException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomMailboxTest {
+    private final ExecutorService workers = Executors.newFixedThreadPool(4);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Test
+    void appliesEachProducersMutationsInOrderOneAtATime() throws Exception {
+        RoomMailbox mailbox = new RoomMailbox("ROOM", workers, 5000, meterRegistry);
+        int producers = 4;
+        int perProducer = 2000;
+        // Only ever touched from inside the mailbox
+        List<List<Integer>> applied = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            applied.add(new ArrayList<>());
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+
+        ExecutorService producerPool = Executors.newFixedThreadPool(producers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                producerPool.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perProducer; i++) {
+                        int value = i;
+                        mailbox.execute(() -> {
+                            if (inFlight.incrementAndGet() != 1) {
+                                overlaps.incrementAndGet();
+                            }
+                            applied.get(producer).add(value);
+                            inFlight.decrementAndGet();
+                        });
+                    }
+                });
+            }
+            start.countDown();
+            producerPool.shutdown();
+            assertTrue(producerPool.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            producerPool.shutdownNow();
+        }
+
+        // Queued behind everything the producers sent
+        mailbox.run(() -> { });
+
+        assertEquals(0, overlaps.get());
+        for (List<Integer> values : applied) {
+            assertEquals(perProducer, values.size());
+            for (int i = 0; i < perProducer; i++) {
+                assertEquals(i, values.get(i));
+            }
+        }
+        assertEquals(0, mailbox.getDepth());
+    }
+
+    @Test
+    void callReturnsTheResult() {
+        RoomMailbox mailbox = new RoomMailbox("ROOM", workers, 5000, meterRegistry);
+
+        assertEquals(42, mailbox.call(() -> 42));
+    }
+
+    @Test
+    void callRethrowsRuntimeExceptions() {
+        RoomMailbox mailbox = new RoomMailbox("ROOM", workers, 5000, meterRegistry);
+        CustomException failure = new CustomException("Answer rejected");
+
+        CustomException thrown = assertThrows(CustomException.class, () -> mailbox.call(() -> {
+            throw failure;
+        }));
+        assertSame(failure, thrown);
+
+        IllegalStateException illegal = assertThrows(IllegalStateException.class, () -> mailbox.run(() -> {
+            throw new IllegalStateException("bad state");
+        }));
+        assertEquals("bad state", illegal.getMessage());
+
+        // The mailbox keeps working after a failed mutation
+        assertEquals(1, mailbox.call(() -> 1));
+    }
+
+    @Test
+    void callWrapsErrors() {
+        RoomMailbox mailbox = new RoomMailbox("ROOM", workers, 5000, meterRegistry);
+
+        CustomException thrown = assertThrows(CustomException.class, () -> mailbox.call(() -> {
+            throw new LinkageError("boom");
+        }));
+        assertEquals("Room ROOM failed: boom", thrown.getMessage());
+    }
+
+    @Test
+    void submitCompletesExceptionally() {
+        RoomMailbox mailbox = new RoomMailbox("ROOM", workers, 5000, meterRegistry);
+
+        CompletableFuture<Object> result = mailbox.submit(() -> {
+            throw new IllegalArgumentException("nope");
+        });
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(thrown.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    void failedExecuteDoesNotStopTheMailbox() {
+        RoomMailbox mailbox = new RoomMailbox("ROOM", workers, 5000, meterRegistry);
+
+        mailbox.execute(() -> {
+            throw new IllegalStateException("logged and dropped");
+        });
+        assertEquals("after", mailbox.call(() -> "after"));
+    }
+
+    @Test
+    void callFromInsideTheMailboxRunsInline() {
+        RoomMailbox mailbox = new RoomMailbox("ROOM", workers, 5000, meterRegistry);
+
+        // Would wait on itself until the timeout if it were queued
+        assertEquals(2, mailbox.call(() -> mailbox.call(() -> 2)));
+    }
+
+    @Test
+    void callTimesOutWhileTheRoomIsBusy() throws Exception {
+        RoomMailbox mailbox = new RoomMailbox("ROOM", workers, 50, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        mailbox.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        CustomException thrown = assertThrows(CustomException.class, () -> mailbox.call(() -> 1));
+        assertEquals("Room ROOM is busy, try again", thrown.getMessage());
+
+        release.countDown();
+        assertEquals(2, mailbox.submit(() -> 2).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void closeRemovesMetersButAppliesQueuedMutations() throws Exception {
+        RoomMailbox mailbox = new RoomMailbox("ROOM", workers, 5000, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        mailbox.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<String> queued = mailbox.submit(() -> "applied");
+        assertNotNull(meterRegistry.find("quiz.room.mailbox.depth").tag("room", "ROOM").gauge());
+
+        mailbox.close();
+        assertTrue(meterRegistry.find("quiz.room.mailbox.depth").tag("room", "ROOM").meters().isEmpty());
+        assertNull(meterRegistry.find("quiz.room.mailbox.wait").tag("room", "ROOM").timer());
+        assertNull(meterRegistry.find("quiz.room.mailbox.processing").tag("room", "ROOM").timer());
+        assertFalse(queued.isDone());
+
+        release.countDown();
+        assertEquals("applied", queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.QuizRush.repository;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the statements sent for a flush. Running them needs Postgres, which
+ * the test suite does not have, so the JdbcTemplate is a mock.
+ */
+class ParticipantScoreRepositoryImplTest {
+    private static final String ONE_ROW =
+            "UPDATE participants AS p SET score = p.score + d.delta, version = p.version + 1"
+                    + " FROM (VALUES (CAST(? AS bigint), CAST(? AS integer)))"
+                    + " AS d(id, delta) WHERE p.id = d.id";
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    void emptyFlushSendsNothing() {
+        ParticipantScoreRepositoryImpl repository = new ParticipantScoreRepositoryImpl(jdbcTemplate, 2);
+
+        assertEquals(0, repository.addScores(Map.of()));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void singleDeltaIsOneTypedValuesRow() {
+        ParticipantScoreRepositoryImpl repository = new ParticipantScoreRepositoryImpl(jdbcTemplate, 10);
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1);
+
+        assertEquals(1, repository.addScores(Map.of(7L, 15)));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(sql.capture(), args.capture());
+        assertEquals(ONE_ROW, sql.getValue());
+        assertArrayEquals(new Object[]{7L, 15}, args.getValue());
+    }
+
+    @Test
+    void deltasAreChunkedAndRowCountsSummed() {
+        ParticipantScoreRepositoryImpl repository = new ParticipantScoreRepositoryImpl(jdbcTemplate, 2);
+        // A participant deleted mid-quiz matches no row
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(2, 2, 0);
+
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        deltas.put(1L, 10);
+        deltas.put(2L, -5);
+        deltas.put(3L, 0);
+        deltas.put(4L, 20);
+        deltas.put(5L, 7);
+
+        assertEquals(4, repository.addScores(deltas));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(3)).update(sql.capture(), args.capture());
+
+        List<String> statements = sql.getAllValues();
+        String twoRows = ONE_ROW.replace("(VALUES (CAST(? AS bigint), CAST(? AS integer)))",
+                "(VALUES (CAST(? AS bigint), CAST(? AS integer)), (CAST(? AS bigint), CAST(? AS integer)))");
+        assertEquals(twoRows, statements.get(0));
+        assertEquals(twoRows, statements.get(1));
+        assertEquals(ONE_ROW, statements.get(2));
+
+        List<Object[]> bound = args.getAllValues();
+        assertArrayEquals(new Object[]{1L, 10, 2L, -5}, bound.get(0));
+        assertArrayEquals(new Object[]{3L, 0, 4L, 20}, bound.get(1));
+        assertArrayEquals(new Object[]{5L, 7}, bound.get(2));
+    }
+
+    @Test
+    void exactMultipleOfTheChunkSendsNoEmptyStatement() {
+        ParticipantScoreRepositoryImpl repository = new ParticipantScoreRepositoryImpl(jdbcTemplate, 2);
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(2);
+
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (long id = 1; id <= 4; id++) {
+            deltas.put(id, 1);
+        }
+
+        assertEquals(4, repository.addScores(deltas));
+        verify(jdbcTemplate, times(2)).update(anyString(), any(Object[].class));
+    }
+}
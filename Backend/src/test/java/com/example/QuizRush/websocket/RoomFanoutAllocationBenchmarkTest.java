@@ -0,0 +1,164 @@
+package com.example.QuizRush.websocket;
+
+import com.example.QuizRush.config.LiveExecutors;
+import com.example.QuizRush.dto.websocket.WebSocketMessage;
+import com.example.QuizRush.dto.websocket.WebSocketMessageType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Allocation per room broadcast on the publishing thread, for the fan-out
+ * path against the per-subscriber work of the broker path, as the room grows.
+ *
+ * Allocation counts depend on the JVM, so this is left out of the normal
+ * test run; run it with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class RoomFanoutAllocationBenchmarkTest {
+    private static final String ROOM = "ROOM42";
+    private static final String DESTINATION = RoomFanout.ROOM_TOPIC_PREFIX + ROOM;
+    private static final int[] ROOM_SIZES = {10, 100, 1000};
+    private static final int WARMUP_BROADCASTS = 50;
+    private static final int MEASURED_BROADCASTS = 50;
+    // About 140 B measured
+    private static final long MAX_FANOUT_BYTES_PER_SUBSCRIBER = 1024;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StompEncoder stompEncoder = new StompEncoder();
+
+    private OutboundConflation conflation;
+    private RoomFanout fanout;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SessionHealthMonitor healthMonitor = new SessionHealthMonitor(meterRegistry, event -> { }, 0, 32, 65536, 2000, 524288, 15000);
+        conflation = new OutboundConflation(new LiveExecutors(new StandardEnvironment()), meterRegistry, healthMonitor, true);
+        fanout = new RoomFanout(conflation, new BinaryFrameEncoding(meterRegistry, true), objectMapper, meterRegistry, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        conflation.shutdown();
+    }
+
+    @Test
+    void allocationPerBroadcastAsRoomGrows() throws Exception {
+        long[] fanoutBytes = new long[ROOM_SIZES.length];
+        long[] perSubscriberBytes = new long[ROOM_SIZES.length];
+        int subscribed = 0;
+        for (int run = 0; run < ROOM_SIZES.length; run++) {
+            int size = ROOM_SIZES[run];
+            List<ConflatingWebSocketSession> sessions = new ArrayList<>();
+            for (; subscribed < size; subscribed++) {
+                subscriber("s" + subscribed, "sub-0");
+            }
+            for (int i = 0; i < size; i++) {
+                sessions.add(conflation.getSession("s" + i));
+            }
+
+            fanoutBytes[run] = measure(() -> fanout.broadcast(ROOM, leaderboardMessage(size)));
+            perSubscriberBytes[run] = measure(() -> perSubscriberBroadcast(sessions, leaderboardMessage(size)));
+
+            // Measured at about a twentieth or less; the margin absorbs JIT noise
+            assertTrue(fanoutBytes[run] * 4 < perSubscriberBytes[run],
+                    size + " subscribers: fan-out " + fanoutBytes[run] + " B, per-subscriber "
+                            + perSubscriberBytes[run] + " B per broadcast");
+        }
+
+        // Each extra subscriber costs the fan-out a queue entry, not a message and a frame
+        int last = ROOM_SIZES.length - 1;
+        int added = ROOM_SIZES[last] - ROOM_SIZES[last - 1];
+        long fanoutPerSubscriber = (fanoutBytes[last] - fanoutBytes[last - 1]) / added;
+        long brokerPerSubscriber = (perSubscriberBytes[last] - perSubscriberBytes[last - 1]) / added;
+        assertTrue(fanoutPerSubscriber < MAX_FANOUT_BYTES_PER_SUBSCRIBER,
+                "Fan-out allocates " + fanoutPerSubscriber + " B per added subscriber");
+        assertTrue(fanoutPerSubscriber * 10 < brokerPerSubscriber,
+                "Fan-out allocates " + fanoutPerSubscriber + " B per added subscriber, per-subscriber framing "
+                        + brokerPerSubscriber + " B");
+    }
+
+    // Stub-only mocks keep no record of the sends, which would dominate a benchmark
+    private void subscriber(String sessionId, String subscriptionId) {
+        WebSocketSession delegate = mock(WebSocketSession.class, withSettings().stubOnly());
+        when(delegate.getId()).thenReturn(sessionId);
+        when(delegate.isOpen()).thenReturn(true);
+        conflation.register(new ConflatingWebSocketSession(delegate, conflation, 60 * 1000, 1024 * 1024));
+        fanout.subscribe(sessionId, subscriptionId, DESTINATION);
+    }
+
+    private WebSocketMessage<Map<String, Object>> leaderboardMessage(int entries) {
+        return new WebSocketMessage<>(WebSocketMessageType.LEADERBOARD_UPDATE,
+                Map.of("entries", entries, "topScore", 1200), ROOM, System.currentTimeMillis());
+    }
+
+    // What the simple broker and the STOMP handler do for every subscriber of a broadcast
+    private void perSubscriberBroadcast(List<ConflatingWebSocketSession> sessions,
+                                        WebSocketMessage<?> message) throws Exception {
+        byte[] payload = objectMapper.writeValueAsBytes(message);
+        SimpMessageHeaderAccessor published = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        published.setDestination(DESTINATION);
+        published.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        Message<byte[]> broadcast = MessageBuilder.createMessage(payload, published.getMessageHeaders());
+
+        for (ConflatingWebSocketSession session : sessions) {
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setSessionId(session.getId());
+            headers.setSubscriptionId("sub-0");
+            headers.copyHeadersIfAbsent(broadcast.getHeaders());
+            Message<byte[]> reply = MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+
+            StompHeaderAccessor stompHeaders = StompHeaderAccessor.create(StompCommand.MESSAGE);
+            stompHeaders.copyHeaders(reply.getHeaders());
+            stompHeaders.setMessageId(session.getId() + "-1");
+            stompHeaders.setNativeHeader(StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER,
+                    MimeTypeUtils.APPLICATION_JSON_VALUE);
+            session.sendMessage(new TextMessage(stompEncoder.encode(stompHeaders.getMessageHeaders(), payload)));
+        }
+    }
+
+    // Average bytes allocated by this thread per broadcast, after a warmup
+    private long measure(Broadcast broadcast) throws Exception {
+        for (int i = 0; i < WARMUP_BROADCASTS; i++) {
+            broadcast.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_BROADCASTS; i++) {
+            broadcast.run();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_BROADCASTS;
+    }
+
+    @FunctionalInterface
+    private interface Broadcast {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.QuizRush.websocket;
+
+import com.example.QuizRush.config.LiveExecutors;
+import com.example.QuizRush.dto.websocket.WebSocketMessage;
+import com.example.QuizRush.dto.websocket.WebSocketMessageType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Frames shared by a room's subscribers and the fallback to the broker. The
+ * allocation comparison with the broker path is in
+ * {@link RoomFanoutAllocationBenchmarkTest}.
+ */
+class RoomFanoutTest {
+    private static final String ROOM = "ROOM42";
+    private static final String DESTINATION = RoomFanout.ROOM_TOPIC_PREFIX + ROOM;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private OutboundConflation conflation;
+    private RoomFanout fanout;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SessionHealthMonitor healthMonitor = new SessionHealthMonitor(meterRegistry, event -> { }, 0, 32, 65536, 2000, 524288, 15000);
+        conflation = new OutboundConflation(new LiveExecutors(new StandardEnvironment()), meterRegistry, healthMonitor, true);
+        fanout = new RoomFanout(conflation, new BinaryFrameEncoding(meterRegistry, true), objectMapper, meterRegistry, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        conflation.shutdown();
+    }
+
+    @Test
+    void sharesOneFramePerSubscriptionId() throws Exception {
+        WebSocketSession first = subscriber("a", "sub-0");
+        WebSocketSession second = subscriber("b", "sub-0");
+        WebSocketSession third = subscriber("c", "sub-7");
+
+        fanout.broadcast(ROOM, leaderboardMessage(1));
+
+        TextMessage firstFrame = sentFrame(first);
+        assertSame(firstFrame, sentFrame(second));
+        String frame = sentFrame(third).getPayload();
+        assertTrue(frame.startsWith("MESSAGE\n"));
+        assertTrue(frame.contains("\ndestination:" + DESTINATION + "\n"));
+        assertTrue(frame.contains("\nsubscription:sub-7\n"));
+        assertTrue(frame.contains("\ncontent-type:application/json\n"));
+        assertTrue(frame.contains("\n\n{\"type\":\"LEADERBOARD_UPDATE\""));
+        assertEquals(OutboundConflation.inspect(firstFrame),
+                new OutboundConflation.Frame(DESTINATION, WebSocketMessageType.LEADERBOARD_UPDATE.name()));
+    }
+
+    @Test
+    void roomWithoutSubscriptionsFallsBackToTheBroker() {
+        assertFalse(fanout.broadcast(ROOM, leaderboardMessage(1)));
+
+        subscriber("a", "sub-0");
+        assertTrue(fanout.broadcast(ROOM, leaderboardMessage(1)));
+
+        fanout.unsubscribe("a", "sub-0");
+        assertFalse(fanout.broadcast(ROOM, leaderboardMessage(1)));
+    }
+
+    @Test
+    void disabledWithoutConflation() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SessionHealthMonitor healthMonitor = new SessionHealthMonitor(meterRegistry, event -> { }, 0, 32, 65536, 2000, 524288, 15000);
+        OutboundConflation disabled = new OutboundConflation(new LiveExecutors(new StandardEnvironment()), meterRegistry, healthMonitor, false);
+        try {
+            RoomFanout withoutConflation = new RoomFanout(disabled, new BinaryFrameEncoding(meterRegistry, true),
+                    objectMapper, meterRegistry, true);
+            withoutConflation.subscribe("a", "sub-0", DESTINATION);
+
+            assertFalse(withoutConflation.isEnabled());
+            assertFalse(withoutConflation.broadcast(ROOM, leaderboardMessage(1)));
+        } finally {
+            disabled.shutdown();
+        }
+    }
+
+    private WebSocketSession subscriber(String sessionId, String subscriptionId) {
+        WebSocketSession delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn(sessionId);
+        when(delegate.isOpen()).thenReturn(true);
+        conflation.register(new ConflatingWebSocketSession(delegate, conflation, 60 * 1000, 1024 * 1024));
+        fanout.subscribe(sessionId, subscriptionId, DESTINATION);
+        return delegate;
+    }
+
+    private static TextMessage sentFrame(WebSocketSession delegate) throws Exception {
+        ArgumentCaptor<TextMessage> frame = ArgumentCaptor.forClass(TextMessage.class);
+        verify(delegate, timeout(5000).atLeastOnce()).sendMessage(frame.capture());
+        return frame.getValue();
+    }
+
+    private WebSocketMessage<Map<String, Object>> leaderboardMessage(int entries) {
+        return new WebSocketMessage<>(WebSocketMessageType.LEADERBOARD_UPDATE,
+                Map.of("entries", entries, "topScore", 1200), ROOM, System.currentTimeMillis());
+    }
+}
@@ -13,6 +13,7 @@ export enum WebSocketMessageType {
   // Participant messages
   PARTICIPANT_JOINED = 'PARTICIPANT_JOINED',
   PARTICIPANT_LEFT = 'PARTICIPANT_LEFT',
+  ROSTER_DELTA = 'ROSTER_DELTA',
 
   // Leaderboard messages
   LEADERBOARD_UPDATE = 'LEADERBOARD_UPDATE',
@@ -20,6 +21,7 @@ export enum WebSocketMessageType {
   // Status messages
   QUIZ_STARTED = 'QUIZ_STARTED',
   QUIZ_ENDED = 'QUIZ_ENDED',
+  ROOM_SNAPSHOT = 'ROOM_SNAPSHOT',
   ERROR = 'ERROR'
 }
 
@@ -38,6 +40,13 @@ export interface ParticipantDTO {
     roomCode: string;
   }
 
+// Joins and leaves batched by the server (matching backend RosterDeltaDTO)
+export interface RosterDelta {
+    added: ParticipantDTO[];
+    removed: ParticipantDTO[];
+    snapshot: boolean;
+  }
+
 export interface QuestionDTO {
     id: number;
     text: string;
@@ -55,6 +64,19 @@ export interface LeaderboardEntry {
   rank: number;
 }
 
+// Full room state, sent on subscribe and after this client skipped updates while lagging (matching backend RoomSnapshotDTO)
+export interface RoomSnapshot {
+  roomCode: string;
+  status: string;
+  currentQuestionIndex: number | null;
+  currentQuestion: QuestionDTO | null;
+  deadline: number | null;
+  leaderboard: LeaderboardEntry[] | null;
+  totalParticipants: number;
+  self: LeaderboardEntry | null;
+  serverTime: number | null;
+}
+
 // Leaderboard data interface (matching your backend LeaderboardDTO)
 export interface LeaderboardData {
   entries: LeaderboardEntry[];
@@ -90,6 +112,9 @@ class WebSocketService {
       try {
         // Create SockJS instance
         const socket = new SockJS('http://localhost:8080/quiz-ws');
+
+        // The server only answers room snapshot requests from the quiz's own participants and host
+        const token = localStorage.getItem('token');
         
         // Create STOMP client
         this.stompClient = new Client({
@@ -98,6 +123,7 @@ class WebSocketService {
           // Configure connection options
           connectHeaders: {
             'heart-beat': '20000,20000', // Send heartbeat every 20 seconds, expect every 20 seconds
+            ...(token ? { Authorization: `Bearer ${token}` } : {}),
           },
           
           // Heartbeat configuration
@@ -221,6 +247,7 @@ class WebSocketService {
     onQuestionEnded?: () => void;
     onTimerUpdate?: (remainingSeconds: number) => void;
     onLeaderboardUpdate?: (leaderboard: LeaderboardData) => void;
+    onRoomSnapshot?: (snapshot: RoomSnapshot) => void;
     onError?: (error: any) => void;
   }): Promise<void> {
     return this.connect().then(() => {
@@ -255,6 +282,16 @@ class WebSocketService {
                   callbacks.onParticipantLeft(parsedMessage.payload);
                 }
                 break;
+              case WebSocketMessageType.ROSTER_DELTA: {
+                const delta: RosterDelta = parsedMessage.payload;
+                if (callbacks.onParticipantJoined) {
+                  delta.added.forEach(callbacks.onParticipantJoined);
+                }
+                if (callbacks.onParticipantLeft) {
+                  delta.removed.forEach(callbacks.onParticipantLeft);
+                }
+                break;
+              }
               case WebSocketMessageType.QUIZ_STARTED:
                 if (callbacks.onQuizStarted) {
                   callbacks.onQuizStarted();
@@ -285,6 +322,11 @@ class WebSocketService {
                   callbacks.onLeaderboardUpdate(parsedMessage.payload);
                 }
                 break;
+              case WebSocketMessageType.ROOM_SNAPSHOT:
+                if (callbacks.onRoomSnapshot) {
+                  callbacks.onRoomSnapshot(parsedMessage.payload);
+                }
+                break;
               case WebSocketMessageType.ERROR:
                 if (callbacks.onError) {
                   callbacks.onError(parsedMessage.payload);
@@ -303,6 +345,25 @@ class WebSocketService {
       );
 
       console.log(`Subscribed to ${destination}`);
+
+      // Ask for the room's current state once the topic is subscribed, so nothing falls in between
+      const snapshotDestination = `/app/quiz/${roomCode}`;
+      if (this.subscriptions[snapshotDestination]) {
+        this.subscriptions[snapshotDestination].unsubscribe();
+      }
+      this.subscriptions[snapshotDestination] = this.stompClient.subscribe(
+        snapshotDestination,
+        (message: IMessage) => {
+          try {
+            const snapshot: RoomSnapshot = JSON.parse(message.body);
+            if (callbacks.onRoomSnapshot) {
+              callbacks.onRoomSnapshot(snapshot);
+            }
+          } catch (error) {
+            console.error('Error processing room snapshot:', error);
+          }
+        }
+      );
     });
   }
 
@@ -338,6 +399,11 @@ class WebSocketService {
 
   // Unsubscribe from a quiz room
   public unsubscribeFromQuiz(roomCode: string): void {
+    const snapshotDestination = `/app/quiz/${roomCode}`;
+    if (this.subscriptions[snapshotDestination]) {
+      this.subscriptions[snapshotDestination].unsubscribe();
+      delete this.subscriptions[snapshotDestination];
+    }
     const destination = `/topic/quiz/${roomCode}`;
     if (this.subscriptions[destination]) {
       this.subscriptions[destination].unsubscribe();
@@ -2,7 +2,7 @@ import React, { useState, useEffect, useRef } from 'react';
 import { useParams, useNavigate, useLocation } from 'react-router-dom';
 import { useQuery, useQueryClient } from '@tanstack/react-query';
 import CircularTimer from '@/components/quiz/CircularTimer';
-import { websocketService,LeaderboardData } from '@/lib/Websocket';
+import { websocketService,LeaderboardData, RoomSnapshot } from '@/lib/Websocket';
 import { QuestionDTO } from '@/lib/Websocket';
 import { quizSessionService } from '@/lib/quiz-session';
 import { answerService } from '@/lib/answer';
@@ -38,6 +38,8 @@ const ParticipantQuestionView: React.FC = () => {
   const navigationTimeoutRef = useRef<NodeJS.Timeout | null>(null);
   const lastQuestionIdRef = useRef<number | null>(null);
   const hasNavigatedRef = useRef(false);
+  // Answer still in flight; its result may arrive after the question has ended
+  const pendingAnswerRef = useRef<Promise<void> | null>(null);
 
   // Fetch current question using useQuery
   const { data: currentQuestion, isLoading } = useQuery({
@@ -150,14 +152,15 @@ const ParticipantQuestionView: React.FC = () => {
             
             setShowResult(true);
             
-            // Navigate to leaderboard after a short delay
-            setTimeout(() => {
+            // Navigate to leaderboard after a short delay, once any answer in flight has been recorded
+            const delay = new Promise(resolve => setTimeout(resolve, 2000));
+            Promise.all([delay, pendingAnswerRef.current]).then(() => {
               if (isSubscribed) {
                 // Clear question cache before navigating
                 queryClient.removeQueries(['currentQuestion', quizId]);
                 navigate(`/leaderboard/${quizId}`, { replace: true });
               }
-            }, 2000);
+            });
           },
           onLeaderboardUpdate: (leaderboard: LeaderboardData) => {
             if (!isSubscribed) return;
@@ -187,6 +190,28 @@ const ParticipantQuestionView: React.FC = () => {
             }
             setTotalParticipants(leaderboard.entries.length);
           },
+          onRoomSnapshot: (snapshot: RoomSnapshot) => {
+            if (!isSubscribed) return;
+
+            // Fills in a question this page has not shown yet; the snapshot may land after newer frames
+            const question = snapshot.currentQuestion;
+            if (question && lastQuestionIdRef.current === null) {
+              queryClient.setQueryData(['currentQuestion', quizId], {
+                id: question.id,
+                text: question.text,
+                options: question.options,
+                duration: question.duration,
+                points: question.points,
+                correctOptions: question.options
+              });
+            }
+            if (snapshot.self) {
+              setScore(snapshot.self.score);
+              setRank(snapshot.self.rank);
+              setTotalTimeSpent(snapshot.self.totalTimeSpent);
+            }
+            setTotalParticipants(snapshot.totalParticipants);
+          },
           // In the WebSocket subscription section, update the onQuizEnded handler:
 
           onQuizEnded: () => {
@@ -197,10 +222,13 @@ const ParticipantQuestionView: React.FC = () => {
             toast.info('Quiz has ended!', {
               position: 'top-center'
             });
-            // Clear question cache before navigating
-            queryClient.removeQueries(['currentQuestion', quizId]);
-            // Navigate to participant summary instead of leaderboard
-            navigate(`/participant-summary/${quizId}/${participantId}`, { replace: true });
+            // The summary reads the stats, so let an answer in flight record first
+            Promise.resolve(pendingAnswerRef.current).then(() => {
+              // Clear question cache before navigating
+              queryClient.removeQueries(['currentQuestion', quizId]);
+              // Navigate to participant summary instead of leaderboard
+              navigate(`/participant-summary/${quizId}/${participantId}`, { replace: true });
+            });
           }
         });
 
@@ -231,24 +259,29 @@ const ParticipantQuestionView: React.FC = () => {
   }, [quizId, participantId, navigate, queryClient]);
 
   const handleAnswerResult = (result: any, currentQuestion: any) => {
+    // Results travel over HTTP and may land after QUESTION_ENDED, NEW_QUESTION
+    // or even after this page has been left, so the stats are recorded straight
+    // to localStorage rather than through a state update that may never run
+    const storedStats = localStorage.getItem('quizStats');
+    const prev = storedStats ? JSON.parse(storedStats) : quizStats;
+    const updatedStats = {
+      correct: prev.correct + (result.correct ? 1 : 0),
+      incorrect: prev.incorrect + (result.correct ? 0 : 1),
+      questions: [...prev.questions, {
+        id: currentQuestion.id.toString(),
+        text: currentQuestion.text,
+        isCorrect: result.correct
+      }]
+    };
+    // Store in localStorage for summary page
+    localStorage.setItem('quizStats', JSON.stringify(updatedStats));
+    setQuizStats(updatedStats);
+
+    // A result for a question that has already moved on must not mark up the next one
+    if (lastQuestionIdRef.current !== currentQuestion.id) {
+      return;
+    }
     setIsAnswerCorrect(result.correct);
-    
-    // Update quiz stats
-    setQuizStats(prev => {
-      const updatedStats = {
-        correct: prev.correct + (result.correct ? 1 : 0),
-        incorrect: prev.incorrect + (result.correct ? 0 : 1),
-        questions: [...prev.questions, {
-          id: currentQuestion.id.toString(),
-          text: currentQuestion.text,
-          isCorrect: result.correct
-        }]
-      };
-
-      // Store in localStorage for summary page
-      localStorage.setItem('quizStats', JSON.stringify(updatedStats));
-      return updatedStats;
-    });
 
     // Store correct option indices for showing correct answers
     if (result.correctOptionIndices) {
@@ -256,6 +289,28 @@ const ParticipantQuestionView: React.FC = () => {
     }
   };
 
+  const submitAnswer = (question: any, selectedOptionIndices: number[]) => {
+    const submission = answerService.submitAnswer(parseInt(quizId || '0'), {
+      participantId: parseInt(participantId || '0'),
+      questionId: question.id,
+      selectedOptionIndices
+    })
+      .then(result => handleAnswerResult(result, question))
+      .catch(error => {
+        console.error('Error submitting answer:', error);
+        toast.error('Failed to submit answer', {
+          position: 'top-center'
+        });
+      })
+      .finally(() => {
+        if (pendingAnswerRef.current === submission) {
+          pendingAnswerRef.current = null;
+        }
+      });
+    pendingAnswerRef.current = submission;
+    return submission;
+  };
+
   const handleOptionSelect = async (optionIndex: number, event: React.MouseEvent) => {
     if (showResult) return;
 
@@ -272,20 +327,7 @@ const ParticipantQuestionView: React.FC = () => {
       setSelectedOptions([optionIndex]);
       setShowResult(true);
       
-      try {
-        const result = await answerService.submitAnswer(parseInt(quizId || '0'), {
-          participantId: parseInt(participantId || '0'),
-          questionId: currentQuestion.id,
-          selectedOptionIndices: [optionIndex]
-        });
-
-          handleAnswerResult(result, currentQuestion);
-      } catch (error) {
-        console.error('Error submitting answer:', error);
-        toast.error('Failed to submit answer', {
-          position: 'top-center'
-        });
-      }
+      await submitAnswer(currentQuestion, [optionIndex]);
       }
     }
   };
@@ -295,20 +337,7 @@ const ParticipantQuestionView: React.FC = () => {
 
     setShowResult(true);
     
-    try {
-      const result = await answerService.submitAnswer(parseInt(quizId || '0'), {
-        participantId: parseInt(participantId || '0'),
-        questionId: currentQuestion.id,
-        selectedOptionIndices: selectedOptions
-      });
-
-      handleAnswerResult(result, currentQuestion);
-    } catch (error) {
-      console.error('Error submitting answer:', error);
-      toast.error('Failed to submit answer', {
-        position: 'top-center'
-      });
-    }
+    await submitAnswer(currentQuestion, selectedOptions);
   };
 
   const getOptionColor = (optionIndex: number) => {